@@ -0,0 +1,153 @@
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional instrumentation of how many bytes each kind of command and each tick allocate, next to how long they take.
+ * <p>Enabled with {@code -Dminecraft.allocations=true}. Allocations are read from the JVM's per-thread counters before
+ * and after a command or tick, so only the measuring thread's allocations count and other threads don't disturb the
+ * numbers. A server tick therefore counts the tick thread, while the commands it runs in parallel count on their own
+ * threads under their command words.</p>
+ * <p>Setting {@code -Dminecraft.allocationBudget=<bytes>} also enables it and turns it into a test: any command
+ * allocating more than the budget fails with an {@link IllegalStateException}.</p>
+ */
+public class AllocationTracker {
+    static final String PROPERTY = "minecraft.allocations";
+    static final String BUDGET_PROPERTY = "minecraft.allocationBudget";
+
+    private static final AllocationTracker INSTANCE = create();
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final long budget;
+    private final Map<CommandWord, Stats> commands = new EnumMap<>(CommandWord.class);
+    private final Stats ticks = new Stats();
+
+    private AllocationTracker(com.sun.management.ThreadMXBean threads, long budget) {
+        this.threads = threads;
+        this.budget = budget;
+
+        for (CommandWord word : CommandWord.values()) {
+            commands.put(word, new Stats());
+        }
+    }
+
+    private static AllocationTracker create() {
+        Long budget = Long.getLong(BUDGET_PROPERTY);
+        if (!Boolean.getBoolean(PROPERTY) && budget == null) return null;
+
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("Allocation tracking is not supported by this JVM");
+            return null;
+        }
+
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return new AllocationTracker(threads, budget != null ? budget : Long.MAX_VALUE);
+    }
+
+    /**
+     * @return The allocation tracker, or empty if it is not enabled.
+     */
+    public static Optional<AllocationTracker> get() {
+        return Optional.ofNullable(INSTANCE);
+    }
+
+    /**
+     * Takes a snapshot of the current thread, to be passed to {@link #endCommand} or {@link #endTick} on the same
+     * thread.
+     *
+     * @return The snapshot.
+     */
+    public Sample start() {
+        return new Sample(threads.getCurrentThreadAllocatedBytes(), System.nanoTime());
+    }
+
+    /**
+     * Records a command run on the current thread since the snapshot was taken.
+     *
+     * @param word  The kind of command.
+     * @param start The snapshot taken before the command ran.
+     * @throws IllegalStateException if the command allocated more than the budget.
+     */
+    public void endCommand(CommandWord word, Sample start) {
+        long bytes = commands.get(word).add(start, this);
+
+        if (bytes > budget) {
+            throw new IllegalStateException("Command " + word + " allocated " + bytes
+                    + " bytes, over the budget of " + budget);
+        }
+    }
+
+    /**
+     * Records a tick run on the current thread since the snapshot was taken.
+     *
+     * @param start The snapshot taken before the tick ran.
+     */
+    public void endTick(Sample start) {
+        ticks.add(start, this);
+    }
+
+    /**
+     * @return A table of the allocations and latency of every kind of command run so far, and of ticks.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder(String.format("%-10s %8s %12s %12s %10s%n",
+                "", "count", "avg B", "max B", "avg ms"));
+
+        commands.forEach((word, stats) -> {
+            if (stats.count.sum() > 0) report.append(stats.row(word.name().toLowerCase()));
+        });
+        report.append(ticks.row("tick"));
+
+        if (budget != Long.MAX_VALUE) {
+            report.append("Budget: ").append(budget).append(" bytes per command\n");
+        }
+        return report.toString();
+    }
+
+    private long allocatedSince(Sample start) {
+        return threads.getCurrentThreadAllocatedBytes() - start.bytes();
+    }
+
+    /**
+     * A thread's allocation counter and the time at the start of a measurement.
+     *
+     * @param bytes The bytes the thread had allocated.
+     * @param nanos The time in nanoseconds.
+     */
+    public record Sample(long bytes, long nanos) {
+    }
+
+    /**
+     * Totals for one kind of measurement, added to from several threads at once.
+     */
+    private static class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxBytes = new LongAccumulator(Math::max, 0);
+
+        /**
+         * @return The bytes allocated since the snapshot.
+         */
+        long add(Sample start, AllocationTracker tracker) {
+            long allocated = tracker.allocatedSince(start);
+            long elapsed = System.nanoTime() - start.nanos();
+
+            count.increment();
+            bytes.add(allocated);
+            nanos.add(elapsed);
+            maxBytes.accumulate(allocated);
+            return allocated;
+        }
+
+        String row(String name) {
+            long n = Math.max(1, count.sum());
+            return String.format("%-10s %8d %12d %12d %10.3f%n",
+                    name, count.sum(), bytes.sum() / n, maxBytes.get(), nanos.sum() / (double) n / 1e6);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,388 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Optional background autosave of the rooms and players that changed.
+ * <p>Enabled with {@code -Dminecraft.autosave=<directory>}. Every change reported through {@link WorldEvents} marks
+ * its room or player dirty. Every {@link #SAVE_INTERVAL_TICKS} ticks the tick thread copies just the dirty records,
+ * which costs as much as the changes since the last save, and a background thread writes them as a new segment. Every
+ * {@link #SEGMENTS_PER_BASE} segments the background thread also folds the segments into a new base save. The tick
+ * thread never waits for the disk. A sharded {@link Server} calls {@link #save()} itself, while all its shards are
+ * between ticks, so an item moving between a room and a player is never saved in both or in neither.</p>
+ * <p>On start the latest base save is loaded and the segments written after it are applied in order. Files are
+ * written under a temporary name and then moved into place, so a crash never leaves a half written save behind.</p>
+ * <p>Mobs are not saved, their spawners bring them back on a restart. Only players handed to {@link #restore} are
+ * saved, by name, which suits the single player game's one player. A {@link Server} names its players in the order they
+ * connect, which says nothing about who they are, so it neither restores nor saves them: otherwise whoever connected
+ * first after a restart would take over the first player's items, room and health.</p>
+ */
+public class Autosave implements WorldListener {
+    static final String PROPERTY = "minecraft.autosave";
+    static final int SAVE_INTERVAL_TICKS = 100;
+    static final int SEGMENTS_PER_BASE = 20;
+
+    private static final String BASE = "base-";
+    private static final String SEGMENT = "segment-";
+    private static final String SUFFIX = ".sav";
+    private static final int FORMAT_VERSION = 1;
+    // The room of a player that left the world
+    private static final int NO_ROOM = -1;
+
+    private static final Room[] ROOMS = Room.values();
+
+    private static final Autosave INSTANCE = System.getProperty(PROPERTY) != null
+            ? new Autosave(Path.of(System.getProperty(PROPERTY)))
+            : null;
+
+    private final Path directory;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("autosave").daemon().factory());
+
+    // Whose items changed, by inventory id
+    private final Map<Long, Room> roomInventories = new HashMap<>();
+    private final Map<Long, Player> playerInventories = new ConcurrentHashMap<>();
+
+    // The players that are saved
+    private final Set<Player> players = ConcurrentHashMap.newKeySet();
+
+    private final Set<Room> dirtyRooms = ConcurrentHashMap.newKeySet();
+    private final Set<Player> dirtyPlayers = ConcurrentHashMap.newKeySet();
+
+    // The state loaded on start, then updated by the background thread as it writes and read by joining players
+    private final Map<Room, RoomRecord> savedRooms = new ConcurrentHashMap<>();
+    private final Map<String, PlayerRecord> savedPlayers = new ConcurrentHashMap<>();
+    private long sequence;
+    private int segmentsSinceBase;
+
+    // Only used by the tick thread
+    private long ticks;
+
+    private Autosave(Path directory) {
+        this.directory = directory;
+
+        try {
+            Files.createDirectories(directory);
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load the autosave from " + directory, e);
+        }
+
+        for (Room room : ROOMS) {
+            roomInventories.put(room.items.getId(), room);
+        }
+
+        WorldEvents.INSTANCE.addListener(this);
+    }
+
+    /**
+     * @return The autosave, or empty if it is not enabled.
+     */
+    public static Optional<Autosave> get() {
+        return Optional.ofNullable(INSTANCE);
+    }
+
+    /**
+     * Puts the saved items back into the rooms of a newly created world.
+     */
+    public void restoreRooms() {
+        savedRooms.values().forEach(record -> {
+            Room room = ROOMS[record.room()];
+            room.items.clear();
+            room.items.addItems(items(record.items()));
+        });
+    }
+
+    /**
+     * Restores a player saved under the same name, once it has been spawned, and saves it from now on.
+     *
+     * @param player The player, whose name must be the same every time the game starts.
+     */
+    public void restore(Player player) {
+        players.add(player);
+        playerInventories.put(player.inventory.getId(), player);
+        dirtyPlayers.add(player);
+
+        PlayerRecord record = savedPlayers.get(player.getName());
+        if (record == null) return;
+
+        player.inventory.clear();
+        player.inventory.addItems(items(record.items()));
+        player.setHealth(record.health());
+        if (record.room() != NO_ROOM && ROOMS[record.room()] != player.getLocation()) {
+            player.setLocation(ROOMS[record.room()]);
+        }
+    }
+
+    /**
+     * Ends a tick. Every {@link #SAVE_INTERVAL_TICKS} ticks, copies the dirty records and hands them to the
+     * background thread. Only called by the tick thread.
+     */
+    public void endTick() {
+        if (++ticks % SAVE_INTERVAL_TICKS == 0) save();
+    }
+
+    /**
+     * Saves what is still dirty and waits for everything to be written, e.g. before the game exits.
+     */
+    public void close() {
+        save();
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                System.err.println("Autosave did not finish writing");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void itemAdded(Inventory inventory, Item item) {
+        itemChanged(inventory);
+    }
+
+    @Override
+    public void itemRemoved(Inventory inventory, Item item) {
+        itemChanged(inventory);
+    }
+
+    @Override
+    public void entitySpawned(Entity entity, Room room) {
+        if (entity instanceof Player player && players.contains(player)) {
+            playerInventories.put(player.inventory.getId(), player);
+            dirtyPlayers.add(player);
+        }
+    }
+
+    @Override
+    public void entityMoved(Entity entity, Room from, Room to) {
+        if (entity instanceof Player player && players.contains(player)) dirtyPlayers.add(player);
+    }
+
+    @Override
+    public void entityRemoved(Entity entity, Room room) {
+        if (entity instanceof Player player && players.contains(player)) {
+            playerInventories.remove(player.inventory.getId());
+            dirtyPlayers.add(player);
+        }
+    }
+
+    private void itemChanged(Inventory inventory) {
+        Room room = roomInventories.get(inventory.getId());
+        if (room != null) {
+            dirtyRooms.add(room);
+            return;
+        }
+
+        Player player = playerInventories.get(inventory.getId());
+        if (player != null) dirtyPlayers.add(player);
+    }
+
+    /**
+     * Copies the dirty records and queues them to be written. Only called while nothing else changes the world: by
+     * the tick thread, or by a server while all its shards are between ticks.
+     */
+    void save() {
+        if (dirtyRooms.isEmpty() && dirtyPlayers.isEmpty()) return;
+
+        // Clean before copying, so a change made meanwhile is saved next time rather than lost
+        List<RoomRecord> rooms = new ArrayList<>();
+        for (Room room : List.copyOf(dirtyRooms)) {
+            dirtyRooms.remove(room);
+            rooms.add(new RoomRecord(room.ordinal(), ids(room.items.getAllItems())));
+        }
+
+        List<PlayerRecord> players = new ArrayList<>();
+        for (Player player : List.copyOf(dirtyPlayers)) {
+            dirtyPlayers.remove(player);
+            Room room = player.getLocation();
+            players.add(new PlayerRecord(player.getName(), room != null ? room.ordinal() : NO_ROOM,
+                    player.getHealth(), ids(player.inventory.getAllItems())));
+        }
+
+        writer.execute(() -> writeSegment(rooms, players));
+    }
+
+    /**
+     * Writes a segment and, every {@link #SEGMENTS_PER_BASE} segments, a new base save. Runs on the background
+     * thread.
+     */
+    private void writeSegment(List<RoomRecord> rooms, List<PlayerRecord> players) {
+        // Kept for the next base save even if the segment can't be written
+        apply(rooms, players);
+
+        try {
+            sequence++;
+            write(SEGMENT, rooms, players);
+
+            if (++segmentsSinceBase >= SEGMENTS_PER_BASE) {
+                write(BASE, List.copyOf(savedRooms.values()), List.copyOf(savedPlayers.values()));
+                segmentsSinceBase = 0;
+                deleteBefore(sequence);
+            }
+        } catch (IOException e) {
+            // Keep playing, the next base save has these records
+            System.err.println("Autosave failed: " + e.getMessage());
+        }
+    }
+
+    private void write(String kind, List<RoomRecord> rooms, List<PlayerRecord> players) throws IOException {
+        Path file = file(kind, sequence);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (DataOutputStream data =
+                     new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            data.writeInt(FORMAT_VERSION);
+            data.writeInt(rooms.size());
+            for (RoomRecord room : rooms) {
+                data.writeInt(room.room());
+                writeIds(data, room.items());
+            }
+            data.writeInt(players.size());
+            for (PlayerRecord player : players) {
+                data.writeUTF(player.name());
+                data.writeInt(player.room());
+                data.writeInt(player.health());
+                writeIds(data, player.items());
+            }
+        }
+
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Loads the latest base save and the segments written after it.
+     */
+    private void load() throws IOException {
+        long base = files(BASE).max().orElse(0);
+        if (base > 0) read(file(BASE, base));
+
+        for (long segment : files(SEGMENT).filter(s -> s > base).sorted().toArray()) {
+            read(file(SEGMENT, segment));
+            segmentsSinceBase++;
+        }
+
+        sequence = Math.max(base, files(SEGMENT).max().orElse(0));
+    }
+
+    private void read(Path file) throws IOException {
+        try (DataInputStream data = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int version = data.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException(file + " has unknown format version " + version);
+            }
+
+            List<RoomRecord> rooms = new ArrayList<>();
+            for (int i = data.readInt(); i > 0; i--) {
+                rooms.add(new RoomRecord(data.readInt(), readIds(data)));
+            }
+            List<PlayerRecord> players = new ArrayList<>();
+            for (int i = data.readInt(); i > 0; i--) {
+                players.add(new PlayerRecord(data.readUTF(), data.readInt(), data.readInt(), readIds(data)));
+            }
+
+            apply(rooms, players);
+        }
+    }
+
+    /**
+     * Applies records on top of the saved state, later records replacing earlier ones.
+     */
+    private void apply(List<RoomRecord> rooms, List<PlayerRecord> players) {
+        rooms.forEach(record -> savedRooms.put(ROOMS[record.room()], record));
+        players.forEach(record -> savedPlayers.put(record.name(), record));
+    }
+
+    private void deleteBefore(long sequence) throws IOException {
+        for (long base : files(BASE).filter(s -> s < sequence).toArray()) {
+            Files.deleteIfExists(file(BASE, base));
+        }
+        for (long segment : files(SEGMENT).filter(s -> s <= sequence).toArray()) {
+            Files.deleteIfExists(file(SEGMENT, segment));
+        }
+    }
+
+    /**
+     * @return The sequence numbers of the files of a kind in the save directory.
+     */
+    private LongStream files(String kind) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long[] sequences = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(kind) && name.endsWith(SUFFIX))
+                    .mapToLong(name -> Long.parseLong(name, kind.length(), name.length() - SUFFIX.length(), 10))
+                    .toArray();
+            return Arrays.stream(sequences);
+        }
+    }
+
+    private Path file(String kind, long sequence) {
+        return directory.resolve(kind + sequence + SUFFIX);
+    }
+
+    private static int[] ids(List<Item> items) {
+        return items.stream().mapToInt(Item::getId).toArray();
+    }
+
+    private static List<Item> items(int[] ids) {
+        // Items missing from the catalog are dropped
+        return Arrays.stream(ids)
+                .filter(id -> id < Items.count())
+                .mapToObj(Items::get)
+                .toList();
+    }
+
+    private static void writeIds(DataOutputStream data, int[] ids) throws IOException {
+        data.writeInt(ids.length);
+        for (int id : ids) {
+            data.writeInt(id);
+        }
+    }
+
+    private static int[] readIds(DataInputStream data) throws IOException {
+        int[] ids = new int[data.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = data.readInt();
+        }
+        return ids;
+    }
+
+    /**
+     * The items lying in a room.
+     *
+     * @param room  The room's ordinal.
+     * @param items The ids of the items.
+     */
+    private record RoomRecord(int room, int[] items) {
+    }
+
+    /**
+     * A player's state.
+     *
+     * @param name   The player's name.
+     * @param room   The ordinal of the player's room, or {@link #NO_ROOM} if it left the world.
+     * @param health The player's health.
+     * @param items  The ids of the player's items.
+     */
+    private record PlayerRecord(String name, int room, int health, int[] items) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+/**
+ * A node of a mob's behaviour tree, compiled into a plain function by {@link MobTypes} when mob types are loaded.
+ * <p>Conditions and actions alike either succeed or fail. Composite nodes are chains of {@link #and}, {@link #or} and
+ * {@link #andThen}, so running a tree is a series of direct calls, with nothing left to interpret per tick.</p>
+ */
+@FunctionalInterface
+public interface Behaviour {
+    /**
+     * Always succeeds without doing anything.
+     */
+    Behaviour SUCCEED = mob -> true;
+
+    /**
+     * Runs the behaviour for one mob tick.
+     *
+     * @param mob The mob behaving.
+     * @return true if the behaviour succeeded.
+     */
+    boolean act(Mob mob);
+
+    /**
+     * @param next The behaviour to run if this one succeeds.
+     * @return A behaviour succeeding if both succeed, as a sequence node.
+     */
+    default Behaviour and(Behaviour next) {
+        return mob -> act(mob) && next.act(mob);
+    }
+
+    /**
+     * @param next The behaviour to run if this one fails.
+     * @return A behaviour succeeding if either succeeds, as a selector node.
+     */
+    default Behaviour or(Behaviour next) {
+        return mob -> act(mob) || next.act(mob);
+    }
+
+    /**
+     * @param next The behaviour to run after this one, whatever its outcome.
+     * @return A behaviour running both and succeeding if either did.
+     */
+    default Behaviour andThen(Behaviour next) {
+        return mob -> act(mob) | next.act(mob);
+    }
+}
\ No newline at end of file
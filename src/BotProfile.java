@@ -0,0 +1,94 @@
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Behaviour profiles for the bot players of the {@link LoadGenerator}.
+ * <p>Each profile is a weighted mix of commands, built from the same {@link CommandWord} vocabulary a real player
+ * types.</p>
+ */
+public enum BotProfile {
+    EXPLORER(List.of(
+            new Choice(6, BotProfile::go),
+            new Choice(2, random -> new Command(CommandWord.BACK, null, null)),
+            new Choice(2, random -> new Command(CommandWord.MAP, null, null))
+    )),
+    HOARDER(List.of(
+            new Choice(3, random -> new Command(CommandWord.PICKUP, randomItem(random), null)),
+            new Choice(2, random -> new Command(CommandWord.DROP, randomItem(random), null)),
+            new Choice(2, random -> new Command(CommandWord.INVENTORY, null, null)),
+            new Choice(3, BotProfile::go)
+    )),
+    CRAFTER(List.of(
+            new Choice(3, random -> new Command(CommandWord.CRAFT, randomItem(random), randomItem(random))),
+            new Choice(3, random -> new Command(CommandWord.PICKUP, randomItem(random), null)),
+            new Choice(1, random -> new Command(CommandWord.INVENTORY, null, null)),
+            new Choice(3, BotProfile::go)
+    )),
+    FIGHTER(List.of(
+            new Choice(4, random -> new Command(CommandWord.ATTACK, random.nextBoolean() ? "zombie" : "enderman", null)),
+            new Choice(1, random -> new Command(CommandWord.PICKUP, Items.IRON_SWORD.getName(), null)),
+            new Choice(5, BotProfile::go)
+    ));
+
+    private final List<Choice> choices;
+    private final int totalWeight;
+
+    BotProfile(List<Choice> choices) {
+        this.choices = choices;
+        this.totalWeight = choices.stream().mapToInt(Choice::weight).sum();
+    }
+
+    /**
+     * Picks the bot's next command according to the profile's weights.
+     *
+     * @param random The bot's source of randomness.
+     * @return The command to issue.
+     */
+    public Command nextCommand(Random random) {
+        int pick = random.nextInt(totalWeight);
+
+        for (Choice choice : choices) {
+            pick -= choice.weight();
+            if (pick < 0) {
+                return choice.command().apply(random);
+            }
+        }
+
+        throw new IllegalStateException("Weights do not add up to " + totalWeight);
+    }
+
+    /**
+     * Formats a command as the line a player would type.
+     *
+     * @param command The command to format.
+     * @return The command line.
+     */
+    public static String toLine(Command command) {
+        StringBuilder line = new StringBuilder(command.commandWord().toString());
+
+        if (command.hasSecondWord()) line.append(' ').append(command.secondWord());
+        if (command.hasThirdWord()) line.append(' ').append(command.thirdWord());
+
+        return line.toString();
+    }
+
+    private static Command go(Random random) {
+        Direction[] directions = Direction.values();
+        return new Command(CommandWord.GO, directions[random.nextInt(directions.length)].toString(), null);
+    }
+
+    private static String randomItem(Random random) {
+        List<Item> items = Items.all();
+        return items.get(random.nextInt(items.size())).getName();
+    }
+
+    /**
+     * A command the profile may issue, and how likely it is relative to the others.
+     *
+     * @param weight  The relative weight of the choice.
+     * @param command Creates the command from the bot's source of randomness.
+     */
+    private record Choice(int weight, Function<Random, Command> command) {
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Resolves all fights of a tick together, at the end of the tick.
+ * <p>Attacks are queued while commands are handled, by several rooms at once on a {@link Server}, and resolved in the
+ * order they were queued once the tick's commands have run. Every hit deals the attacker's damage minus the
+ * defender's armor straight away, so a later hit on the same defender sees the health the earlier one left.</p>
+ * <p>Only queueing takes the lock. Resolving swaps the queue for an empty one and then works without it, so the
+ * reports and the deaths of the defeated run without holding up attacks queued meanwhile.</p>
+ */
+public class Combat {
+    public static final Combat INSTANCE = new Combat();
+
+    // Fights queued this tick, and the spare list swapped in while they are resolved
+    private List<Fight> queued = new ArrayList<>();
+    private List<Fight> resolving = new ArrayList<>();
+
+    /**
+     * Creates a combat of its own, e.g. for one shard of a {@link Server}. Everything else uses {@link #INSTANCE}.
+     */
+    Combat() {
+    }
+
+    /**
+     * Queues an attack to be resolved at the end of the tick. Rooms may queue attacks in parallel.
+     *
+     * @param attacker The entity attacking.
+     * @param defender The entity being attacked.
+     * @param report   Receives the outcome of the attack.
+     */
+    public synchronized void queue(Entity attacker, Entity defender, Consumer<String> report) {
+        queued.add(new Fight(attacker, defender, report));
+    }
+
+    /**
+     * Resolves all queued attacks in order: every hit deals the attacker's damage minus the defender's armor, and
+     * defenders whose health drops to zero die. Only called by the thread ticking the world.
+     *
+     * @return The entities killed this tick.
+     */
+    public List<Entity> resolve() {
+        List<Fight> fights;
+        synchronized (this) {
+            if (queued.isEmpty()) return List.of();
+
+            fights = queued;
+            queued = resolving;
+            resolving = fights;
+        }
+
+        List<Entity> killed = new ArrayList<>();
+        for (Fight fight : fights) {
+            Entity defender = fight.defender();
+            int dealt = Math.max(fight.attacker().getAttackDamage() - defender.getArmor(), 0);
+            defender.setHealth(Math.max(defender.getHealth() - dealt, 0));
+
+            // The first hit on a defender without health left kills it
+            if (defender.getHealth() > 0) {
+                fight.report().accept("You hit " + defender.getName() + " for " + dealt + " damage. ("
+                        + defender.getHealth() + "/" + defender.getMaxHealth() + " health)");
+            } else if (isAlive(defender)) {
+                killed.add(defender);
+                WorldEvents.INSTANCE.entityKilled(fight.attacker(), defender, defender.getLocation());
+                fight.report().accept(hit(defender, dealt) + "\n" + defender.die());
+            } else {
+                fight.report().accept(hit(defender, dealt));
+            }
+        }
+
+        fights.clear();
+        return killed;
+    }
+
+    private static String hit(Entity defender, int dealt) {
+        return "You hit " + defender.getName() + " for " + dealt + " damage.";
+    }
+
+    private static boolean isAlive(Entity entity) {
+        return entity.getLocation() != null;
+    }
+
+    /**
+     * An attack waiting to be resolved.
+     *
+     * @param attacker The entity attacking.
+     * @param defender The entity being attacked.
+     * @param report   Receives the outcome of the attack.
+     */
+    private record Fight(Entity attacker, Entity defender, Consumer<String> report) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+import java.util.List;
+
+/**
+ * Benchmark of fight resolution, comparing hits applied straight away, the way attacks used to be handled, with hits
+ * queued during the tick and resolved by {@link Combat} at its end.
+ * <p>Every round queues a number of fights between sword wielding players and armored mobs, many defenders taking
+ * several hits, and resolves them as one tick. The mobs have enough health to survive every round, so both paths do
+ * the same work every time. The difference is what queueing costs.</p>
+ */
+public class CombatBenchmark {
+    private static final int[] FIGHTS = {100, 1_000, 10_000};
+    private static final int DEFENDERS_PER_FIGHT = 4;
+    private static final int WARMUP_TICKS = 2_000;
+    private static final int MEASURED_TICKS = 2_000;
+    // A tough target mob, ticked by nobody
+    private static final MobType DUMMY = new MobType(-1, "dummy", Integer.MAX_VALUE, 2, List.of(), Behaviour.SUCCEED);
+
+    // Keeps the reports from being optimised away
+    private static int reported;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Not used.
+     */
+    public static void main(String[] args) {
+        System.out.printf("%8s %15s %15s %8s%n", "fights", "direct us/tick", "queued us/tick", "ratio");
+        for (int fights : FIGHTS) {
+            Entity[] attackers = new Entity[fights];
+            Entity[] defenders = new Entity[fights];
+            Mob[] mobs = new Mob[Math.max(1, fights / DEFENDERS_PER_FIGHT)];
+            for (int i = 0; i < mobs.length; i++) {
+                mobs[i] = new Mob(DUMMY);
+            }
+            for (int i = 0; i < fights; i++) {
+                Player player = new Player("player" + i, Game.INVENTORY_CAPACITY);
+                player.inventory.addItem(Items.IRON_SWORD);
+                attackers[i] = player;
+                defenders[i] = mobs[i % mobs.length];
+            }
+
+            double direct = microsPerTick(() -> resolveDirect(attackers, defenders));
+            double queued = microsPerTick(() -> resolveQueued(attackers, defenders));
+            System.out.printf("%8d %15.1f %15.1f %7.2fx%n", fights, direct, queued, direct / queued);
+        }
+    }
+
+    /**
+     * Applies every hit straight to its defender, one entity at a time.
+     */
+    private static void resolveDirect(Entity[] attackers, Entity[] defenders) {
+        for (int i = 0; i < attackers.length; i++) {
+            Entity defender = defenders[i];
+            int dealt = Math.max(attackers[i].getAttackDamage() - defender.getArmor(), 0);
+            defender.setHealth(Math.max(defender.getHealth() - dealt, 0));
+            report("You hit " + defender.getName() + " for " + dealt + " damage. (" + defender.getHealth() + "/"
+                    + defender.getMaxHealth() + " health)");
+        }
+        restore(defenders);
+    }
+
+    /**
+     * Queues every fight and resolves them at once, as a tick does.
+     */
+    private static void resolveQueued(Entity[] attackers, Entity[] defenders) {
+        for (int i = 0; i < attackers.length; i++) {
+            Combat.INSTANCE.queue(attackers[i], defenders[i], CombatBenchmark::report);
+        }
+        Combat.INSTANCE.resolve();
+        restore(defenders);
+    }
+
+    private static void restore(Entity[] defenders) {
+        for (Entity defender : defenders) {
+            defender.setHealth(defender.getMaxHealth());
+        }
+    }
+
+    private static void report(String outcome) {
+        reported += outcome.length();
+    }
+
+    private static double microsPerTick(Runnable tick) {
+        for (int i = 0; i < WARMUP_TICKS; i++) {
+            tick.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            tick.run();
+        }
+        return (System.nanoTime() - start) / 1e3 / MEASURED_TICKS;
+    }
+}
\ No newline at end of file
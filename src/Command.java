@@ -1,3 +1,5 @@
+import java.util.Optional;
+
 /**
  * Represents a command entered by the player in the game.
  * A command consists of a command word (e.g., "go", "pickup item1") and optional
@@ -21,4 +23,22 @@ public record Command(CommandWord commandWord, String secondWord, String thirdWo
     public boolean hasThirdWord() {
         return (thirdWord != null);
     }
+
+    /**
+     * Resolves the second word as an item name. Items are only ever looked up by name here.
+     *
+     * @return The item named by the second word, or empty if there is no such item.
+     */
+    public Optional<Item> secondItem() {
+        return hasSecondWord() ? Items.fromName(secondWord) : Optional.empty();
+    }
+
+    /**
+     * Resolves the third word as an item name.
+     *
+     * @return The item named by the third word, or empty if there is no such item.
+     */
+    public Optional<Item> thirdItem() {
+        return hasThirdWord() ? Items.fromName(thirdWord) : Optional.empty();
+    }
 }
\ No newline at end of file
@@ -13,6 +13,9 @@ public enum CommandWord {
     CRAFT("craft"),
     ATTACK("attack"),
     MAP("map"),
+    UNDO("undo"),
+    LAG("lag"),
+    OPTIMIZE("optimize"),
     UNKNOWN("?");
 
     private final String commandString;
@@ -1,3 +1,4 @@
+import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.Objects;
 
@@ -28,13 +29,15 @@ public class CommandWords {
     }
 
     /**
-     * Print all valid commands to System.out.
+     * Print all valid commands to the given stream.
+     *
+     * @param out The stream to print to.
      */
-    public void showAll() {
+    public void showAll(PrintStream out) {
         for (String command : validCommands.keySet()) {
-            System.out.print(command + "  ");
+            out.print(command + "  ");
         }
 
-        System.out.println();
+        out.println();
     }
 }
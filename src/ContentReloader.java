@@ -0,0 +1,156 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Optional hot reload of the item and mob catalogs while the game runs.
+ * <p>Enabled with {@code -Dminecraft.content=<directory>}. A background thread watches the directory, and whenever
+ * {@code items.txt} or {@code mobs.txt} changes there it reads and compiles both catalogs, taking a file the directory
+ * doesn't have from the classpath. A catalog that doesn't parse, or that would remove an item or mob type or give it
+ * another id, is rejected with a message and the game carries on with the catalogs it has.</p>
+ * <p>All the parsing and validating happens on the background thread, which only stages the result. The tick thread,
+ * or a sharded {@link Server} while all its shards are between ticks, swaps staged catalogs in with {@link #swap()},
+ * so no command runs meanwhile. Every catalog is one immutable snapshot behind a volatile reference, so a lookup sees
+ * the old or the new catalog and never half of each. Entities then move onto the new definitions: inventories are
+ * weighed again and mobs take their reloaded type, which changes their behaviour at once and their health, armor and
+ * drops when they next spawn. None of that reads a file, so a reload costs the tick a pass over the world and no
+ * more.</p>
+ * <p>Rooms are part of the code and are not reloaded.</p>
+ */
+public class ContentReloader {
+    static final String PROPERTY = "minecraft.content";
+    // Editors tend to write a file in several steps, wait for them to finish
+    private static final long SETTLE_MILLIS = 200;
+    private static final Set<String> FILES = Set.of(Items.CATALOG, MobTypes.CATALOG);
+
+    private static final ContentReloader INSTANCE = System.getProperty(PROPERTY) != null
+            ? new ContentReloader(Path.of(System.getProperty(PROPERTY)))
+            : null;
+
+    private final Path directory;
+    // Read and checked, waiting for the tick thread
+    private final AtomicReference<Content> staged = new AtomicReference<>();
+
+    private ContentReloader(Path directory) {
+        this.directory = directory;
+
+        // Whatever the directory has now applies from the first tick
+        stage();
+        Thread.ofPlatform().name("content-reloader").daemon().start(this::watch);
+    }
+
+    /**
+     * @return The content reloader, or empty if hot reload is not enabled.
+     */
+    public static Optional<ContentReloader> get() {
+        return Optional.ofNullable(INSTANCE);
+    }
+
+    /**
+     * @return Whether catalogs are staged, waiting for {@link #swap()}.
+     */
+    public boolean hasStaged() {
+        return staged.get() != null;
+    }
+
+    /**
+     * Installs the catalogs staged since the last call, if any, and moves the world onto them. Only called while
+     * nothing else changes the world: by the tick thread, or by a server while all its shards are between ticks.
+     *
+     * @return A line telling what was reloaded, for the caller to report, or empty if nothing was staged.
+     */
+    public Optional<String> swap() {
+        Content content = staged.getAndSet(null);
+        if (content == null) return Optional.empty();
+
+        long start = System.nanoTime();
+        Items.install(content.items());
+        MobTypes.install(content.mobs());
+
+        for (Room room : Room.values()) {
+            room.items.reweigh();
+        }
+        for (Entity entity : LocationManager.INSTANCE.getEntities()) {
+            entity.inventory.reweigh();
+            if (entity instanceof Mob mob) mob.migrate(MobTypes.get(mob.getType().getId()));
+        }
+        // Pooled mobs were made with the old stats
+        MobPool.INSTANCE.clear();
+
+        return Optional.of(String.format("Content reloaded: %d items, %d mob types, swapped in %.3f ms",
+                Items.count(), MobTypes.count(), (System.nanoTime() - start) / 1e6));
+    }
+
+    /**
+     * Reads and checks both catalogs and stages them for the next {@link #swap()}, replacing any staged before.
+     */
+    private void stage() {
+        try {
+            Items.Catalog items = Items.load(open(Items.CATALOG));
+            MobTypes.Catalog mobs = MobTypes.load(open(MobTypes.CATALOG), items);
+
+            items.checkReplaces(Items.catalog());
+            mobs.checkReplaces(MobTypes.catalog());
+            staged.set(new Content(items, mobs));
+        } catch (IllegalStateException | IOException | UncheckedIOException e) {
+            System.err.println("Content reload rejected: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens a catalog in the content directory, or on the classpath if the directory doesn't have it.
+     */
+    private InputStream open(String catalog) throws IOException {
+        Path file = directory.resolve(catalog);
+        return Files.exists(file) ? Files.newInputStream(file) : ContentReloader.class.getResourceAsStream(catalog);
+    }
+
+    /**
+     * Stages the catalogs again every time one of their files in the directory is written.
+     */
+    private void watch() {
+        try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+            directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = false;
+                do {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= event.context() instanceof Path file && FILES.contains(file.toString());
+                    }
+                    key.reset();
+
+                    // Fold the rest of a burst of writes into one reload
+                    if (changed) Thread.sleep(SETTLE_MILLIS);
+                } while (changed && (key = watcher.poll()) != null);
+
+                if (changed) stage();
+            }
+        } catch (IOException | ClosedWatchServiceException e) {
+            System.err.println("Content reload stopped: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Catalogs read together, installed together.
+     *
+     * @param items The item catalog.
+     * @param mobs  The mob catalog, whose drops are items of {@code items}.
+     */
+    private record Content(Items.Catalog items, MobTypes.Catalog mobs) {
+    }
+}
\ No newline at end of file
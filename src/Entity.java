@@ -1,23 +1,48 @@
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public abstract class Entity {
     protected static final Random RANDOM = new Random();
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+    private static final int DEFAULT_MAX_HEALTH = 20;
+    // Damage dealt without a weapon
+    static final int FIST_DAMAGE = 1;
 
+    private final long id = NEXT_ID.getAndIncrement();
     private final String name;
+    private final int maxHealth;
+    private final int armor;
+    private int health;
     public Inventory inventory;
 
 
     /**
-     * Creates a new Entity in Mini Minecraft.
+     * Creates a new Entity in Mini Minecraft with default health and no armor.
      *
      * @param name         the name of the entity
      * @param maxWeight    the maximum weight the entity's inventory can hold
      * @param initialItems the initial items the entity starts with
      */
     public Entity(String name, int maxWeight, List<Item> initialItems) {
+        this(name, maxWeight, initialItems, DEFAULT_MAX_HEALTH, 0);
+    }
+
+    /**
+     * Creates a new Entity in Mini Minecraft.
+     *
+     * @param name         the name of the entity
+     * @param maxWeight    the maximum weight the entity's inventory can hold
+     * @param initialItems the initial items the entity starts with
+     * @param maxHealth    the health the entity starts with
+     * @param armor        the damage taken off every hit on the entity
+     */
+    public Entity(String name, int maxWeight, List<Item> initialItems, int maxHealth, int armor) {
         this.name = name;
-        this.inventory = new Inventory(maxWeight, initialItems != null ? initialItems : new ArrayList<>());
+        this.inventory = new Inventory(maxWeight, initialItems);
+        this.maxHealth = maxHealth;
+        this.armor = armor;
+        this.health = maxHealth;
     }
 
     /**
@@ -58,66 +83,55 @@ public abstract class Entity {
     /**
      * Picks up an item from the room's floor.
      *
-     * @param itemName the name of the item to pick up
+     * @param item the item to pick up
      * @return a message indicating the result of the pickup action
      */
-    public String pickup(String itemName) {
-        Optional<Item> item = getLocation().items.getAllItems().stream()
-                .filter(i -> i.getName().equals(itemName))
-                .findFirst();
-
-        // If the item is found
-        return item.map(value -> {
-                    // Player cannot pick up
-                    if (!value.isPickable()) {
-                        return itemName + " is not pickable.";
-                    }
-
-                    // Try to add the item to the inventory
-                    return this.inventory.addItem(value)
-                            .map(newItem -> {
-                                getLocation().items.removeItem(value);
-                                return value.getName() + " picked up.";
-                            })
-                            .orElse("Inventory full.");
-                })
-                .orElseGet(() -> itemName + " is not in the room.");
+    public String pickup(Item item) {
+        Inventory roomItems = getLocation().items;
+
+        if (!roomItems.contains(item)) {
+            return item.getName() + " is not in the room.";
+        }
+
+        // Player cannot pick up
+        if (!item.isPickable()) {
+            return item.getName() + " is not pickable.";
+        }
+
+        if (inventory.contains(item)) {
+            return "You already have " + item.getName() + ".";
+        }
+
+        // Try to move the item from the floor into the inventory
+        return Inventory.transfer(roomItems, this.inventory, item)
+                .map(newItem -> item.getName() + " picked up.")
+                .orElseGet(() -> roomItems.contains(item)
+                        ? "Inventory full."
+                        : item.getName() + " is not in the room."); // someone else got there first
     }
 
     /**
      * Drops an item from the entity's inventory onto the floor.
      *
-     * @param itemName the name of the item to drop
+     * @param item the item to drop
      * @return a message indicating the result of the drop action
      */
-    public String drop(String itemName) {
-        Optional<Item> item = inventory.getAllItems().stream()
-                .filter(i -> i.getName().equals(itemName))
-                .findFirst();
-
-        if (item.isEmpty()) {
-            return "Item not found: " + itemName;
-        }
-
-        // Remove item from inventory
-        this.inventory.removeItem(item.get());
-        // and add item to current room
-        getLocation().items.addItem(item.get());
-
-        return item.get().getName() + " dropped.";
+    public String drop(Item item) {
+        // Move item from inventory to the current room
+        return Inventory.transfer(this.inventory, getLocation().items, item)
+                .map(dropped -> dropped.getName() + " dropped.")
+                .orElseGet(() -> "Item not found: " + item.getName());
     }
 
+
     /**
      * Causes the entity to die, dropping all items in the room and removing it from the game.
      *
      * @return a message indicating the result of the death action and any dropped items
      */
     public String die() {
-        Inventory roomItems = getLocation().items;
-        List<Item> droppedItems = inventory.getAllItems(); // Store dropped items for result
-
-        roomItems.addItems(droppedItems); // Add dropped items to the room
-        inventory.clear(); // Clear the entity's inventory
+        // Move everything onto the floor, storing dropped items for result
+        List<Item> droppedItems = Inventory.transferAll(inventory, getLocation().items);
         LocationManager.INSTANCE.removeEntity(this); // Remove the entity
 
         // Construct death message
@@ -135,25 +149,68 @@ public abstract class Entity {
     }
 
     /**
-     * Teleport Entity to a random room.
+     * Teleport Entity to a random room, every other room being equally likely.
      */
     public Optional<Room> teleportToRandomRoom() {
-        Room currentRoom = getLocation();
-        Room[] availableRooms = Arrays.stream(Room.values())
-                .filter(room -> !room.equals(currentRoom)) // don't teleport to the same room
-                .toArray(Room[]::new);
+        return teleportToRandomRoom(TeleportSampler.UNIFORM);
+    }
 
-        if (availableRooms.length == 0) {
-            return Optional.empty();
-        }
+    /**
+     * Teleport Entity to a random room picked by the given sampler.
+     *
+     * @param destinations the sampler weighing the possible destinations
+     */
+    public Optional<Room> teleportToRandomRoom(TeleportSampler destinations) {
+        // Don't teleport to the same room
+        Optional<Room> randomRoom = destinations.sample(RANDOM, getLocation());
+        randomRoom.ifPresent(this::setLocation);
 
-        // Select a random room
-        Random random = new Random();
-        Room randomRoom = availableRooms[random.nextInt(availableRooms.length)];
+        return randomRoom;
+    }
 
-        setLocation(randomRoom);
+    /**
+     * Gets the damage the entity deals per hit, from its best weapon.
+     *
+     * @return the attack damage of the entity
+     */
+    public int getAttackDamage() {
+        return Math.max(FIST_DAMAGE, inventory.getBestDamage());
+    }
+
+    public int getHealth() {
+        return health;
+    }
+
+    public int getMaxHealth() {
+        return maxHealth;
+    }
 
-        return Optional.of(randomRoom);
+    public int getArmor() {
+        return armor;
+    }
+
+    /**
+     * Sets the entity's health, e.g. after taking damage in {@link Combat}.
+     *
+     * @param health the new health of the entity
+     */
+    public void setHealth(int health) {
+        int from = this.health;
+        this.health = Math.min(health, maxHealth);
+
+        // Only the health of entities in the world is part of its state
+        if (this.health != from && getLocation() != null) {
+            WorldEvents.INSTANCE.healthChanged(this, from, this.health);
+        }
+    }
+
+    /**
+     * Gets the id of the entity, unique and in order of creation.
+     *
+     * @return the id of the entity
+     */
+    public long getId() {
+        return id;
     }
 
     /**
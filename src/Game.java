@@ -1,92 +1,331 @@
+import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Mini Minecraft.
  */
 public class Game {
     private static final String PLAYER_NAME = "Steve";
-    private static final int INVENTORY_CAPACITY = 5;
-    private static final Room SPAWN_ROOM = Room.PLAINS;
+    static final int INVENTORY_CAPACITY = 5;
+    static final Room SPAWN_ROOM = Room.PLAINS;
+    private static final int ZOMBIE_SLAYER_KILLS = 10;
+    // Mobs act every two seconds at the default tick rate, rather than every tick
+    static final int MOB_TICK_INTERVAL = 40;
+
+    // The Nether rarely drops players deep into the world
+    static final TeleportSampler NETHER_DESTINATIONS = TeleportSampler.UNIFORM
+            .withWeight(Room.STRONGHOLD, 0.5)
+            .withWeight(Room.END_PORTAL_ROOM, 0.5);
+
+    // Mobs respawn in their home rooms some ticks after being killed
+    static final List<MobSpawner> SPAWNERS = List.of(
+            new MobSpawner(Room.FOREST, 1, 30).withType(1, MobTypes.ENDERMAN),
+            new MobSpawner(Room.PLAINS, 1, 20).withType(1, MobTypes.ZOMBIE)
+    );
 
     private final Parser parser;
     private final Player player;
     private final List<Mob> mobs;
+    private final PrintStream out;
+    private final List<Rule> rules;
+    // Receives the outcome of the player's attacks when the fights of the tick are resolved
+    private Consumer<String> fightReports;
+    // Where the player's attacks are queued
+    private Combat combat = Combat.INSTANCE;
+    // Whether the command being handled queued an attack
+    private boolean attackQueued;
+    private volatile boolean won;
+    private TickLoop tickLoop;
+    private long ticks;
 
     /**
      * Constructs a new Game instance and initializes the player and parser.
      * The player starts in the spawn room (Plains).
      */
     public Game() {
-        this.parser = new Parser();
-        this.player = new Player(PLAYER_NAME, INVENTORY_CAPACITY);
-        this.mobs = new ArrayList<>();
+        this(new Parser(), new Player(PLAYER_NAME, INVENTORY_CAPACITY), createWorld(), System.out);
+    }
 
+    /**
+     * Constructs a Game for a player in an already created world, e.g. one client of the {@link Server}.
+     *
+     * @param parser The parser reading the player's commands.
+     * @param player The player issuing commands.
+     * @param mobs   The mobs of the shared world.
+     * @param out    The stream the player's output is written to.
+     */
+    Game(Parser parser, Player player, List<Mob> mobs, PrintStream out) {
+        this.parser = parser;
+        this.player = player;
+        this.mobs = mobs;
+        this.out = out;
+        this.fightReports = out::println;
+        this.rules = createRules();
+        rules.forEach(RuleEngine.INSTANCE::add);
+        Notifications.INSTANCE.subscribe(player, out::println);
+    }
+
+    /**
+     * Places all items and spawns all mobs of a new world.
+     *
+     * @return The mobs living in the world.
+     */
+    static List<Mob> createWorld() {
         initRoomItems();
-        initMobs();
+        Autosave.get().ifPresent(Autosave::restoreRooms);
+        return initMobs();
     }
 
     /**
      * Initialises all items in the game and places them.
      */
-    private void initRoomItems() {
-        Room.VILLAGE.items.addItem(Item.BLAZE_POWDER);
-        Room.PLAINS.items.addItem(Item.BLAZE_ROD);
-        Room.STRONGHOLD.items.addItem(Item.IRON_SWORD);
+    private static void initRoomItems() {
+        Room.VILLAGE.items.addItem(Items.BLAZE_POWDER);
+        Room.PLAINS.items.addItem(Items.BLAZE_ROD);
+        Room.STRONGHOLD.items.addItem(Items.IRON_SWORD);
     }
-    
+
     /**
      * Initialises all mobs in the game and spawns them.
+     *
+     * @return The spawned mobs.
      */
-    private void initMobs() {
-        Mob enderman = new Mobs.Enderman();
-        Mob zombie = new Mobs.Zombie();
+    private static List<Mob> initMobs() {
+        List<Mob> mobs = new ArrayList<>();
 
-        mobs.add(enderman);
-        mobs.add(zombie);
+        // New spawners fill up straight away
+        SPAWNERS.forEach(spawner -> spawner.tick(mobs));
 
-        LocationManager.INSTANCE.spawn(enderman, Room.FOREST);
-        LocationManager.INSTANCE.spawn(zombie, Room.PLAINS);
+        return mobs;
+    }
+
+    /**
+     * Creates the player's win condition and achievements.
+     *
+     * @return The rules, to be checked by the {@link RuleEngine} while the game lasts.
+     */
+    private List<Rule> createRules() {
+        AtomicInteger zombieKills = new AtomicInteger();
+
+        return List.of(
+                // The Eye of Ender may be crafted in the End Portal room or brought into it
+                Rule.once("win", EnumSet.of(Trigger.ENTITY_ENTERED, Trigger.ITEM_ADDED), Set.of(Room.END_PORTAL_ROOM),
+                        event -> event.entity() == player
+                                && player.inventory.contains(Items.EYE_OF_ENDER),
+                        event -> won = true),
+                // Counts every kill, the achievement comes with the one that reaches the goal
+                Rule.every("zombie slayer", EnumSet.of(Trigger.ENTITY_KILLED), Set.of(),
+                        event -> event.entity() == player && event.target() instanceof Mob mob
+                                && mob.getType().equals(MobTypes.ZOMBIE),
+                        event -> {
+                            if (zombieKills.incrementAndGet() == ZOMBIE_SLAYER_KILLS) {
+                                out.println("* Achievement: killed " + ZOMBIE_SLAYER_KILLS + " zombies *");
+                            }
+                        }),
+                Rule.once("pearl courier", EnumSet.of(Trigger.ENTITY_ENTERED), Set.of(Room.STRONGHOLD),
+                        event -> event.entity() == player
+                                && player.inventory.contains(Items.ENDER_PEARL),
+                        event -> out.println("* Achievement: carried an ender_pearl into the STRONGHOLD *"))
+        );
     }
 
     /**
      * Starts the game and enters the game loop, where the player can issue commands.
-     * The loop continues until the player quits.
+     * The loop continues until the player wins or quits.
+     *
+     * @return How the game ended.
      */
-    public void play() {
+    public SessionResult play() {
         // Spawn player, begin game
         LocationManager.INSTANCE.spawn(player, SPAWN_ROOM);
+        Autosave.get().ifPresent(autosave -> autosave.restore(player));
+        WorldHistory.INSTANCE.start();
 
         printWelcome();
+        out.print("> ");
 
-        boolean finished = false;
-        // Every entered command is a Minecraft tick
-        while (!finished) {
-            Command command = parser.getCommand();
+        // The player types at their own pace while the world ticks on
+        Queue<Command> input = new ConcurrentLinkedQueue<>();
+        Thread.ofPlatform().daemon().name("input").start(() -> readInput(input));
+
+        tickLoop = new TickLoop(TickLoop.DEFAULT_TICKS_PER_SECOND, OverrunPolicy.CATCH_UP, () -> tick(input));
+        tickLoop.run();
+
+        close();
+        Autosave.get().ifPresent(Autosave::close);
+        if (won) printWin();
+        AllocationTracker.get().ifPresent(allocations -> out.print(allocations.report()));
+        out.println("Thank you for playing. Good bye.");
+        return won ? SessionResult.WON : SessionResult.QUIT;
+    }
+
+    /**
+     * Runs one tick of a single player game: mobs act every {@link #MOB_TICK_INTERVAL} ticks, then all commands
+     * entered since the last tick are processed.
+     *
+     * @param input The commands entered so far.
+     */
+    private void tick(Queue<Command> input) {
+        Optional<AllocationTracker> tracker = AllocationTracker.get();
+        AllocationTracker.Sample start = tracker.map(AllocationTracker::start).orElse(null);
 
-            this.checkWinCondition();
-            // Trigger mob actions every tick to simulate autonomy
-            mobs.forEach(Mob::performAction);
-            mobs.forEach(Mob::autoMove);
+        ContentReloader.get().flatMap(ContentReloader::swap).ifPresent(out::println);
 
+        // Trigger mob actions regularly to simulate autonomy
+        if (ticks++ % MOB_TICK_INTERVAL == 0) {
+            tickMobs(mobs);
+        }
+
+        boolean finished = false;
+        boolean prompt = false;
+        Command command;
+        while (!finished && !won && (command = input.poll()) != null) {
             finished = processCommand(command);
+            prompt = true;
+        }
+
+        resolveFights(mobs);
+        Notifications.INSTANCE.flush();
+        WorldHistory.INSTANCE.endTick();
+        Autosave.get().ifPresent(Autosave::endTick);
+        tracker.ifPresent(allocations -> allocations.endTick(start));
+
+        if (finished || won) {
+            tickLoop.stop();
+        } else if (prompt) {
+            out.print("> ");
+        }
+    }
+
+    /**
+     * Reads the player's commands into a queue for the tick loop, until the input ends.
+     *
+     * @param input The queue to add commands to.
+     */
+    private void readInput(Queue<Command> input) {
+        try {
+            while (parser.hasNextCommand()) {
+                input.add(parser.nextCommand());
+            }
+        } catch (NoSuchElementException | IllegalStateException e) {
+            // Input closed while reading
+        }
+
+        // Nobody is left to type quit
+        input.add(new Command(CommandWord.QUIT, null, null));
+    }
+
+    /**
+     * Handles a single command for a player of a shared world. Mobs are ticked separately by the world's owner.
+     *
+     * @param command The command to handle.
+     * @return How the player's session ended, or empty if it goes on.
+     */
+    Optional<SessionResult> handle(Command command) {
+        attackQueued = false;
+        if (processCommand(command)) {
+            return Optional.of(SessionResult.QUIT);
+        }
+
+        if (won) {
+            printWin();
+            return Optional.of(SessionResult.WON);
         }
 
-        System.out.println("Thank you for playing. Good bye.");
+        return Optional.empty();
+    }
+
+    /**
+     * @return Whether the last command handled queued an attack, whose outcome only arrives when the fights of the
+     * tick are resolved.
+     */
+    boolean hasQueuedAttack() {
+        return attackQueued;
+    }
+
+    /**
+     * Sends the outcome of the player's attacks somewhere else than the player's output, e.g. so a server can answer
+     * the attack once it is known.
+     *
+     * @param reports Receives the outcome of every attack, on the thread resolving the fights.
+     */
+    void setFightReports(Consumer<String> reports) {
+        this.fightReports = reports;
+    }
+
+    /**
+     * Queues the player's attacks somewhere else than {@link Combat#INSTANCE}, e.g. with the shard of a server that
+     * owns the player's room.
+     *
+     * @param combat Where the player's attacks are queued and resolved.
+     */
+    void setCombat(Combat combat) {
+        this.combat = combat;
+    }
+
+    /**
+     * Lets the player of a shared world see how its tick loop keeps up.
+     *
+     * @param tickLoop The loop the world's owner ticks the world with.
+     */
+    void setTickLoop(TickLoop tickLoop) {
+        this.tickLoop = tickLoop;
+    }
+
+    /**
+     * Stops checking the player's rules and delivering notices to them, once the session is over.
+     */
+    void close() {
+        rules.forEach(RuleEngine.INSTANCE::remove);
+        Notifications.INSTANCE.unsubscribe(player);
+    }
+
+    /**
+     * Resolves the fights queued during the tick and removes killed mobs from the game.
+     *
+     * @param mobs The mobs of the world.
+     */
+    static void resolveFights(List<Mob> mobs) {
+        mobs.removeAll(Combat.INSTANCE.resolve());
+    }
+
+    /**
+     * Runs the behaviour of all mobs for one tick, and lets the spawners replace killed mobs.
+     *
+     * @param mobs The mobs to tick.
+     */
+    static void tickMobs(List<Mob> mobs) {
+        mobs.forEach(Mob::act);
+        SPAWNERS.forEach(spawner -> spawner.tick(mobs));
+    }
+
+    /**
+     * @return The player this game is played by.
+     */
+    public Player getPlayer() {
+        return player;
     }
 
     /**
      * Prints the initial welcome message and instructions for the game.
      */
-    private void printWelcome() {
-        System.out.println();
-        System.out.println("Welcome to Mini Minecraft!");
-        System.out.println("You are " + player.getName());
-        System.out.println("Find items and craft an Eye of Ender to win.");
-        System.out.println("Type '" + CommandWord.HELP + "' if you need help.");
-        System.out.println();
-        System.out.println(player.getLocation());
+    void printWelcome() {
+        out.println();
+        out.println("Welcome to Mini Minecraft!");
+        out.println("You are " + player.getName());
+        out.println("Find items and craft an Eye of Ender to win.");
+        out.println("Type '" + CommandWord.HELP + "' if you need help.");
+        out.println();
+        out.println(player.getLocation());
     }
 
     /**
@@ -96,13 +335,29 @@ public class Game {
      * @return {@code true} if the player chose to quit, otherwise {@code false}.
      */
     private boolean processCommand(Command command) {
+        Optional<AllocationTracker> tracker = AllocationTracker.get();
+        if (tracker.isEmpty()) return runCommand(command);
+
+        AllocationTracker.Sample start = tracker.get().start();
+        boolean wantToQuit = runCommand(command);
+        tracker.get().endCommand(command.commandWord(), start);
+        return wantToQuit;
+    }
+
+    /**
+     * Performs the action of a command.
+     *
+     * @param command The command to run.
+     * @return {@code true} if the player chose to quit, otherwise {@code false}.
+     */
+    private boolean runCommand(Command command) {
         boolean wantToQuit = false;
 
         CommandWord commandWord = command.commandWord();
 
         switch (commandWord) {
             case UNKNOWN:
-                System.out.println("I don't know what you mean...");
+                out.println("I don't know what you mean...");
                 break;
 
             case HELP:
@@ -138,7 +393,19 @@ public class Game {
                 break;
 
             case MAP:
-                System.out.println(player.getLocation());
+                showMap();
+                break;
+
+            case UNDO:
+                undo(command);
+                break;
+
+            case LAG:
+                showLag();
+                break;
+
+            case OPTIMIZE:
+                optimizeInventory(command);
                 break;
 
             case QUIT:
@@ -149,14 +416,21 @@ public class Game {
         return wantToQuit;
     }
 
+    /**
+     * Congratulates the player on winning.
+     */
+    private void printWin() {
+        out.println("You've activated the End Portal! You win!");
+    }
+
     /**
      * Displays the help message, giving the player instructions on how to play the game.
      */
     private void printHelp() {
-        System.out.println("Collect Blaze Powder (Village) + Ender Pearl (Enderman) to craft Eye of Ender.");
-        System.out.println("Travel between rooms to find what you need.\n");
-        System.out.println(player.getLocation() + "\nYour command words are:");
-        parser.showCommands();
+        out.println("Collect Blaze Powder (Village) + Ender Pearl (Enderman) to craft Eye of Ender.");
+        out.println("Travel between rooms to find what you need.\n");
+        out.println(player.getLocation() + "\nYour command words are:");
+        parser.showCommands(out);
     }
 
     /**
@@ -166,7 +440,7 @@ public class Game {
      */
     private void gotoRoom(Command command) {
         if (!command.hasSecondWord()) {
-            System.out.println("Go where?");
+            out.println("Go where?");
             return;
         }
 
@@ -177,22 +451,22 @@ public class Game {
                 .flatMap(player::move)
                 .ifPresentOrElse(
                         (destination) -> {
-                            System.out.println(destination);
+                            out.println(destination);
 
                             // Nether room is for teleporting
                             if (destination == Room.NETHER) {
-                                player.teleportToRandomRoom().ifPresentOrElse(
+                                player.teleportToRandomRoom(NETHER_DESTINATIONS).ifPresentOrElse(
                                         (dest) -> {
-                                            System.out.println("* Teleporting to " + dest.name() + " *");
-                                            System.out.println(dest);
+                                            out.println("* Teleporting to " + dest.name() + " *");
+                                            out.println(dest);
                                         },
-                                        () -> System.out.println("Looks like there's nowhere to teleport to")
+                                        () -> out.println("Looks like there's nowhere to teleport to")
                                 );
                             }
                         },
                         () -> {
                             // Player is being dumb, show them the possible exits
-                            System.out.println("I don't know that direction.\n" + player.getLocation().getExitString());
+                            out.println("I don't know that direction.\n" + player.getLocation().getExitString());
                         }
                 );
     }
@@ -202,16 +476,38 @@ public class Game {
      */
     private void goBack() {
         player.goBack().ifPresentOrElse(
-                System.out::println,    // output destination
-                () -> System.out.println("Can't go back.")
+                out::println,    // output destination
+                () -> out.println("Can't go back.")
         );
     }
 
+    /**
+     * Displays a map of the rooms around the player.
+     */
+    private void showMap() {
+        out.print(WorldMap.INSTANCE.render(player));
+        out.println("@ you, p players, m mobs, * items");
+        out.println(player.getLocation());
+    }
+
+    /**
+     * Displays how well the world's tick loop keeps up.
+     */
+    private void showLag() {
+        if (tickLoop == null) {
+            out.println("The world isn't ticking yet.");
+            return;
+        }
+
+        out.println(tickLoop.getLagReport());
+        AllocationTracker.get().ifPresent(allocations -> out.print(allocations.report()));
+    }
+
     /**
      * Displays the player's inventory.
      */
     private void showInventory() {
-        System.out.println(player.inventory);
+        out.println(player.inventory);
     }
 
     /**
@@ -221,14 +517,15 @@ public class Game {
      */
     private void pickupItem(Command command) {
         if (!command.hasSecondWord()) {
-            System.out.println("Pick what?");
+            out.println("Pick what?");
             return;
         }
 
-        String itemName = command.secondWord();
-        String result = player.pickup(itemName);
+        String result = command.secondItem()
+                .map(player::pickup)
+                .orElseGet(() -> command.secondWord() + " is not in the room.");
 
-        System.out.println(result);
+        out.println(result);
     }
 
     /**
@@ -238,14 +535,30 @@ public class Game {
      */
     private void dropItem(Command command) {
         if (!command.hasSecondWord()) {
-            System.out.println("Drop what?");
+            out.println("Drop what?");
             return;
         }
 
-        String itemName = command.secondWord();
-        String result = player.drop(itemName);
+        String result = command.secondItem()
+                .map(player::drop)
+                .orElseGet(() -> "Item not found: " + command.secondWord());
+
+        out.println(result);
+    }
+
+    /**
+     * Packs the player's inventory with the most useful items within reach.
+     *
+     * @param command The command containing the optional item to work towards, the Eye of Ender unless given.
+     */
+    private void optimizeInventory(Command command) {
+        Optional<Item> goal = command.hasSecondWord() ? command.secondItem() : Optional.of(Items.EYE_OF_ENDER);
+        if (goal.isEmpty()) {
+            out.println("Optimize for what?");
+            return;
+        }
 
-        System.out.println(result);
+        out.println(player.optimizeInventory(InventoryOptimizer.towards(goal.get())));
     }
 
     /**
@@ -255,40 +568,74 @@ public class Game {
      */
     private void craftItem(Command command) {
         if (!command.hasSecondWord() || !command.hasThirdWord()) {
-            System.out.println("Craft what with what?");
+            out.println("Craft what with what?");
             return;
         }
 
-        String firstItem = command.secondWord();
-        String secondItem = command.thirdWord();
-
         // Get the items from inventory
-        Optional<Item> item1Opt = player.inventory.getItem(firstItem);
-        Optional<Item> item2Opt = player.inventory.getItem(secondItem);
+        Optional<Item> item1Opt = command.secondItem().filter(player.inventory::contains);
+        Optional<Item> item2Opt = command.thirdItem().filter(player.inventory::contains);
 
         // If either item is missing, bail
         if (item1Opt.isEmpty() || item2Opt.isEmpty()) {
-            System.out.println("You don't have those items!");
+            out.println("You don't have those items!");
             return;
         }
 
         // Find the corresponding crafting recipe
         Recipes.findRecipe(item1Opt.get(), item2Opt.get()).ifPresentOrElse(
                 recipe -> {
-                    // Remove items from player inventory
-                    player.inventory.removeItem(item1Opt.get().getName());
-                    player.inventory.removeItem(item2Opt.get().getName());
-
-                    // and replace with crafted item
-                    Item craftedItem = recipe.result();
-                    player.inventory.addItem(craftedItem);
-
-                    System.out.println("Crafted: " + craftedItem.getName());
+                    // Replace the ingredients with the crafted item in one step
+                    // Recipes keep the item they were made with, which a content reload may have replaced since
+                    Item result = Items.get(recipe.result().getId());
+                    if (player.inventory.contains(result)) {
+                        out.println("You already have " + result.getName() + ".");
+                        return;
+                    }
+
+                    player.inventory.replaceItems(item1Opt.get(), item2Opt.get(), result)
+                            .ifPresentOrElse(
+                                    craftedItem -> out.println("Crafted: " + craftedItem.getName()),
+                                    () -> out.println("You can't carry the crafted item!")
+                            );
                 },
-                () -> System.out.println("Incompatible items!")
+                () -> out.println("Incompatible items!")
         );
     }
 
+    /**
+     * Rolls the world back by a number of ticks, one unless given.
+     *
+     * @param command The command containing the optional number of ticks to undo.
+     */
+    private void undo(Command command) {
+        if (!WorldHistory.INSTANCE.isRecording()) {
+            out.println("Undo is not available in a shared world.");
+            return;
+        }
+
+        int ticks;
+        try {
+            ticks = command.hasSecondWord() ? Integer.parseInt(command.secondWord()) : 1;
+        } catch (NumberFormatException e) {
+            out.println("Undo how many ticks?");
+            return;
+        }
+
+        int undone = WorldHistory.INSTANCE.undo(ticks);
+
+        // Mobs may have come back to life or never have been spawned
+        mobs.removeIf(mob -> mob.getLocation() == null);
+        LocationManager.INSTANCE.getEntities().stream()
+                .filter(entity -> entity instanceof Mob)
+                .map(entity -> (Mob) entity)
+                .filter(mob -> !mobs.contains(mob))
+                .forEach(mobs::add);
+
+        out.println("Undid " + undone + " tick" + (undone == 1 ? "" : "s") + ".");
+        out.println(player.getLocation());
+    }
+
     /**
      * Handles the 'quit' command, ending the game.
      *
@@ -297,7 +644,7 @@ public class Game {
      */
     private boolean quit(Command command) {
         if (command.hasSecondWord()) {
-            System.out.println("Quit what?");
+            out.println("Quit what?");
             return false;
         }
 
@@ -311,7 +658,7 @@ public class Game {
      */
     private void attack(Command command) {
         if (!command.hasSecondWord()) {
-            System.out.println("Attack what?");
+            out.println("Attack what?");
             return;
         }
 
@@ -322,28 +669,11 @@ public class Game {
                 .findFirst()
                 .ifPresentOrElse(
                         mob -> {
-                            String result = player.kill(mob);   // mob exists in the room, kill it
-                            mobs.remove(mob);   // remove mob from game
-                            System.out.println(result);
+                            // Mob exists, fight at end of tick
+                            attackQueued = true;
+                            combat.queue(player, mob, fightReports);
                         },
-                        () -> System.out.println("There is no such mob here.")
+                        () -> out.println("There is no such mob here.")
                 );
     }
-
-    /**
-     * Checks if the player has crafted the Eye of Ender and whether they are in the Portal Room.
-     * If both conditions are met, the player gets the W.
-     */
-    private void checkWinCondition() {
-        Optional<Item> eyeOfEnder = player.inventory.getItem(Item.EYE_OF_ENDER.getName());
-
-        // Not in End Portal room, bail
-        if (player.getLocation() != Room.END_PORTAL_ROOM) return;
-
-        // Check if the player has the Eye of Ender
-        eyeOfEnder.ifPresent((eye) -> {
-            System.out.println("You've activated the End Portal! You win!");
-            System.exit(0);
-        });
-    }
 }
\ No newline at end of file
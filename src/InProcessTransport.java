@@ -0,0 +1,39 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Transport} between shards in the same JVM: a lock-free queue per shard, with messages passed by reference.
+ *
+ * @param <M> The type of message.
+ */
+public class InProcessTransport<M> implements Transport<M> {
+    private final List<Queue<M>> inboxes = new ArrayList<>();
+
+    /**
+     * @param shards The number of shards.
+     */
+    public InProcessTransport(int shards) {
+        for (int i = 0; i < shards; i++) {
+            inboxes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    @Override
+    public void send(int shard, M message) {
+        inboxes.get(shard).add(message);
+    }
+
+    @Override
+    public void drain(int shard, Consumer<M> receiver) {
+        Queue<M> inbox = inboxes.get(shard);
+        M message;
+
+        // Only what was sent before the drain started, messages sent meanwhile wait for the next one
+        for (int remaining = inbox.size(); remaining > 0 && (message = inbox.poll()) != null; remaining--) {
+            receiver.accept(message);
+        }
+    }
+}
\ No newline at end of file
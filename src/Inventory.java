@@ -1,12 +1,25 @@
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Represents an inventory that can hold a collection of items with a weight capacity.
+ * <p>Every inventory is its own lock, so inventories in different rooms can be used in parallel. Items moving
+ * between two inventories go through {@link #transfer}, which holds both locks so an item is never in both
+ * inventories or in neither.</p>
+ * <p>Items are stored by id in an {@link ItemSet}, whose layout adapts to the number of items, so the many empty
+ * inventories of a large world cost little more than the inventory object.</p>
  */
 public class Inventory {
-    private final Map<String, Item> items;
+    // Gives every inventory its place in the lock order
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final long id = NEXT_ID.getAndIncrement();
+    private ItemSet items = ItemSet.EMPTY;
     private final int capacity;
+    // Whether the inventory is part of the world, i.e. its changes are reported to WorldEvents
+    private boolean inWorld;
 
     /**
      * Constructs an Inventory with the specified capacity and initial items.
@@ -16,7 +29,6 @@ public class Inventory {
      */
     public Inventory(int capacity, List<Item> initialItems) {
         this.capacity = capacity;
-        this.items = new HashMap<>();
         this.addItems(Objects.requireNonNullElse(initialItems, List.of()));
     }
 
@@ -26,16 +38,7 @@ public class Inventory {
      * @param capacity the maximum weight capacity of the inventory.
      */
     public Inventory(int capacity) {
-        this(capacity, new ArrayList<>());
-    }
-
-    /**
-     * Removes an item from the inventory by its name.
-     *
-     * @param itemName the name of the item to remove.
-     */
-    public void removeItem(String itemName) {
-        items.remove(itemName);
+        this(capacity, List.of());
     }
 
     /**
@@ -43,17 +46,30 @@ public class Inventory {
      *
      * @param item the item to remove.
      */
-    public void removeItem(Item item) {
-        items.remove(item.getName());
+    public synchronized void removeItem(Item item) {
+        if (!items.remove(item)) return;
+
+        if (items.size() == 0) {
+            items = ItemSet.EMPTY;
+        }
+        if (inWorld) {
+            WorldEvents.INSTANCE.itemRemoved(this, item);
+        }
     }
 
     /**
      * Adds an item to the inventory, if it does not exceed the maximum weight.
      *
      * @param item the item to add.
-     * @return an Optional containing the item if added, or empty if the weight limit is exceeded.
+     * @return an Optional containing the item if added, or empty if the inventory already holds it or the weight
+     * limit is exceeded.
      */
-    public Optional<Item> addItem(Item item) {
+    public synchronized Optional<Item> addItem(Item item) {
+        // An inventory holds one of each item, a second one would be lost
+        if (items.contains(item)) {
+            return Optional.empty();
+        }
+
         // Check if additional item would exceed max weight
         double newWeight = getCurrentInventoryWeight() + item.getWeight();
         if (newWeight > capacity) {
@@ -61,7 +77,7 @@ public class Inventory {
         }
 
         // If not, add to inventory
-        items.put(item.getName(), item);
+        put(item);
 
         return Optional.of(item);
     }
@@ -73,7 +89,7 @@ public class Inventory {
      * @param itemsToAdd the list of items to add.
      * @throws IllegalStateException if adding the items exceeds the maximum weight capacity.
      */
-    public void addItems(List<Item> itemsToAdd) {
+    public synchronized void addItems(List<Item> itemsToAdd) {
         double newTotalWeight = getCurrentInventoryWeight() +
                 itemsToAdd.stream().mapToDouble(Item::getWeight).sum();
 
@@ -87,13 +103,129 @@ public class Inventory {
     }
 
     /**
-     * Retrieves an item from the inventory by its name.
+     * Atomically replaces two items in the inventory with another, e.g. the ingredients of a recipe with its result.
+     * Nothing changes if either item is missing, the inventory already holds the replacement or it would not fit.
+     *
+     * @param first       the first item to remove.
+     * @param second      the second item to remove.
+     * @param replacement the item to add in their place.
+     * @return an Optional containing the replacement if the swap happened, or empty otherwise.
+     */
+    public synchronized Optional<Item> replaceItems(Item first, Item second, Item replacement) {
+        if (!items.contains(first) || !items.contains(second)) {
+            return Optional.empty();
+        }
+
+        removeItem(first);
+        removeItem(second);
+
+        // Put the ingredients back if the replacement can't be added
+        Optional<Item> added = addItem(replacement);
+        if (added.isEmpty()) {
+            put(first);
+            put(second);
+        }
+
+        return added;
+    }
+
+    /**
+     * Atomically moves an item from one inventory to another.
+     *
+     * @param from the inventory to take the item from.
+     * @param to   the inventory to put the item in.
+     * @param item the item to move.
+     * @return an Optional containing the item if it was moved, or empty if it was not in {@code from}, is already in
+     * {@code to} or would exceed the weight capacity of {@code to}.
+     */
+    public static Optional<Item> transfer(Inventory from, Inventory to, Item item) {
+        return locked(from, to, () -> {
+            // An inventory holds one of each item, a second one would be lost
+            if (!from.items.contains(item) || to.items.contains(item)) {
+                return Optional.empty();
+            }
+
+            // Only take the item once it has a place to go
+            return to.addItem(item).map(moved -> {
+                from.removeItem(moved);
+                return moved;
+            });
+        });
+    }
+
+    /**
+     * Atomically moves every item that fits, and that {@code to} doesn't hold yet, from one inventory to another.
+     *
+     * @param from the inventory to empty.
+     * @param to   the inventory to put the items in.
+     * @return the items that were moved.
+     */
+    public static List<Item> transferAll(Inventory from, Inventory to) {
+        return locked(from, to, () -> from.getAllItems().stream()
+                .filter(item -> transfer(from, to, item).isPresent())
+                .toList());
+    }
+
+    /**
+     * Atomically exchanges items between two inventories, e.g. a player's and their room's. Either all items move or,
+     * if any of them is missing, already in the inventory it would move to, or either inventory would end up over its
+     * capacity, none do.
+     *
+     * @param mine   the inventory to give from and take into.
+     * @param theirs the inventory to take from and give into.
+     * @param give   the items to move from {@code mine} to {@code theirs}.
+     * @param take   the items to move from {@code theirs} to {@code mine}.
+     * @return true if the items were exchanged.
+     */
+    public static boolean exchange(Inventory mine, Inventory theirs, List<Item> give, List<Item> take) {
+        return locked(mine, theirs, () -> {
+            if (!give.stream().allMatch(mine.items::contains) || !take.stream().allMatch(theirs.items::contains)) {
+                return false;
+            }
+            // An inventory holds one of each item, a second one would be lost
+            if (give.stream().anyMatch(theirs.items::contains) || take.stream().anyMatch(mine.items::contains)) {
+                return false;
+            }
+
+            double given = give.stream().mapToDouble(Item::getWeight).sum();
+            double taken = take.stream().mapToDouble(Item::getWeight).sum();
+            if (mine.items.weight() - given + taken > mine.capacity
+                    || theirs.items.weight() - taken + given > theirs.capacity) {
+                return false;
+            }
+
+            // Make room on both sides before adding, the weights were checked for the end result
+            give.forEach(mine::removeItem);
+            take.forEach(theirs::removeItem);
+            give.forEach(theirs::put);
+            take.forEach(mine::put);
+            return true;
+        });
+    }
+
+    /**
+     * Runs an action holding the locks of both inventories. Locks are always taken in id order, so two transfers
+     * between the same inventories in opposite directions cannot deadlock.
+     */
+    private static <T> T locked(Inventory a, Inventory b, Supplier<T> action) {
+        Inventory first = a.id <= b.id ? a : b;
+        Inventory second = first == a ? b : a;
+
+        synchronized (first) {
+            synchronized (second) {
+                return action.get();
+            }
+        }
+    }
+
+    /**
+     * Checks whether the inventory holds an item.
      *
-     * @param itemName the name of the item to retrieve.
-     * @return an Optional containing the item if found, or empty if not found.
+     * @param item the item to look for.
+     * @return true if the item is in the inventory, otherwise false.
      */
-    public Optional<Item> getItem(String itemName) {
-        return Optional.ofNullable(items.get(itemName));
+    public synchronized boolean contains(Item item) {
+        return items.contains(item);
     }
 
     /**
@@ -101,8 +233,28 @@ public class Inventory {
      *
      * @return a list of all items in the inventory.
      */
-    public List<Item> getAllItems() {
-        return List.copyOf(items.values());
+    public synchronized List<Item> getAllItems() {
+        return items.items();
+    }
+
+    /**
+     * Finds the damage of the strongest weapon in the inventory.
+     *
+     * @return the highest damage of any item, or 0 if there is no weapon.
+     */
+    public synchronized int getBestDamage() {
+        int best = 0;
+        for (Item item : items.items()) {
+            best = Math.max(best, item.getDamage());
+        }
+        return best;
+    }
+
+    /**
+     * @return the maximum weight the inventory can hold.
+     */
+    public int getCapacity() {
+        return capacity;
     }
 
     /**
@@ -110,24 +262,68 @@ public class Inventory {
      *
      * @return the total weight of the items in the inventory.
      */
-    public double getCurrentInventoryWeight() {
-        return items.values().stream()
-                .mapToDouble(Item::getWeight)
-                .sum();
+    public synchronized double getCurrentInventoryWeight() {
+        return items.weight();
+    }
+
+    /**
+     * Adds up the weight of the items again, by their current definitions. See {@link ContentReloader}.
+     */
+    public synchronized void reweigh() {
+        if (items != ItemSet.EMPTY) items.reweigh();
     }
 
     /**
      * Clears all items from the inventory.
      */
-    public void clear() {
-        items.clear();
+    public synchronized void clear() {
+        items.items().forEach(this::removeItem);
+    }
+
+    /**
+     * Sets whether the inventory is part of the world, i.e. whether its changes are reported to {@link WorldEvents}.
+     * Its items as a whole enter and leave the world together with its entity.
+     *
+     * @param inWorld true if the inventory's changes should be reported.
+     */
+    synchronized void setInWorld(boolean inWorld) {
+        this.inWorld = inWorld;
+    }
+
+    /**
+     * @return the id of the inventory, unique and in order of creation.
+     */
+    long getId() {
+        return id;
+    }
+
+    /**
+     * Computes the inventory's contribution to the {@link WorldHash} from scratch.
+     *
+     * @return the XOR of the keys of all items in the inventory.
+     */
+    synchronized long hash() {
+        return items.items().stream()
+                .mapToLong(item -> WorldHash.itemKey(id, item))
+                .reduce(0, (a, b) -> a ^ b);
+    }
+
+    private void put(Item item) {
+        // Empty inventories share one set until their first item
+        if (items == ItemSet.EMPTY) {
+            items = new ItemSet();
+        }
+
+        if (items.add(item) && inWorld) {
+            WorldEvents.INSTANCE.itemAdded(this, item);
+        }
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         // Create the string for the items in the inventory, separated by spaces
-        String itemsList = this.items.entrySet().stream()
-                .map(entry -> entry.getKey() + " (" + entry.getValue().getWeight() + "kg)")
+        String itemsList = this.items.items().stream()
+                .map(Item::toString)
                 .collect(Collectors.joining(" ")); // Using space as separator
 
         // Get current inventory weight and max capacity
@@ -0,0 +1,108 @@
+import java.util.List;
+
+/**
+ * Checks of the inventory edge cases that are easy to break when changing how items are stored.
+ * <p>Run it after touching {@link Inventory} or {@link ItemSet}: it prints every check and fails with an
+ * {@link IllegalStateException} at the first one that doesn't hold.</p>
+ */
+public class InventoryCheck {
+
+    /**
+     * Runs all checks.
+     *
+     * @param args Not used.
+     */
+    public static void main(String[] args) {
+        emptyInventoryTakesAndGives();
+        optimizeKeepsItemsAlsoOnTheFloor();
+        craftingKeepsIngredientsOfACarriedResult();
+        optimizeNeverDropsItemsAlsoOnTheFloor();
+        System.out.println("All inventory checks passed.");
+    }
+
+    /**
+     * Empty inventories share {@link ItemSet#EMPTY}, which must never be written to: an empty inventory has to take
+     * an item, give it back, and take one again, without any other empty inventory seeing it.
+     */
+    private static void emptyInventoryTakesAndGives() {
+        Inventory player = new Inventory(Game.INVENTORY_CAPACITY);
+        Inventory floor = new Inventory(Game.INVENTORY_CAPACITY, List.of(Items.BLAZE_POWDER));
+        Inventory bystander = new Inventory(Game.INVENTORY_CAPACITY);
+
+        check(player.getAllItems().isEmpty() && player.getCurrentInventoryWeight() == 0, "a new inventory is empty");
+
+        check(Inventory.transfer(floor, player, Items.BLAZE_POWDER).isPresent(), "an empty inventory takes an item");
+        check(player.contains(Items.BLAZE_POWDER) && !floor.contains(Items.BLAZE_POWDER), "the item moved");
+        check(player.getCurrentInventoryWeight() == Items.BLAZE_POWDER.getWeight(), "the item's weight moved");
+        check(bystander.getAllItems().isEmpty(), "other empty inventories stay empty");
+
+        check(Inventory.transfer(player, floor, Items.BLAZE_POWDER).isPresent(), "it gives the item back");
+        check(player.getAllItems().isEmpty() && player.getCurrentInventoryWeight() == 0, "it is empty again");
+        check(floor.contains(Items.BLAZE_POWDER), "the floor has the item again");
+
+        check(Inventory.transfer(floor, player, Items.BLAZE_POWDER).isPresent(), "it takes an item again");
+        check(floor.getAllItems().isEmpty() && bystander.getAllItems().isEmpty(), "nothing else holds the item");
+    }
+
+    /**
+     * An item the player carries can lie on the floor as well, e.g. a second ender pearl from a respawned enderman.
+     * Packing must neither pick it up again nor lose either copy.
+     */
+    private static void optimizeKeepsItemsAlsoOnTheFloor() {
+        Inventory player = new Inventory(Game.INVENTORY_CAPACITY, List.of(Items.BLAZE_POWDER));
+        Inventory floor = new Inventory(Game.INVENTORY_CAPACITY, List.of(Items.BLAZE_POWDER, Items.ENDER_PEARL));
+
+        InventoryOptimizer.Plan plan = InventoryOptimizer.plan(player.getAllItems(), floor.getAllItems(),
+                player.getCapacity(), InventoryOptimizer.towards(Items.EYE_OF_ENDER));
+        check(plan.drop().isEmpty() && plan.take().equals(List.of(Items.ENDER_PEARL)),
+                "the plan only takes what the player doesn't carry");
+
+        check(Inventory.exchange(player, floor, plan.drop(), plan.take()), "the plan is applied");
+        check(player.contains(Items.BLAZE_POWDER) && floor.contains(Items.BLAZE_POWDER),
+                "both copies of the carried item are kept");
+
+        check(!Inventory.exchange(player, floor, List.of(), List.of(Items.BLAZE_POWDER)),
+                "an exchange won't take an item the inventory already has");
+        check(!Inventory.exchange(player, floor, List.of(Items.BLAZE_POWDER), List.of()),
+                "an exchange won't give an item the other inventory already has");
+        check(player.contains(Items.BLAZE_POWDER) && floor.contains(Items.BLAZE_POWDER),
+                "a refused exchange moves nothing");
+    }
+
+    /**
+     * A carried item that also lies on the floor can't be dropped there, so a plan must keep it, even when it is worth
+     * nothing and its weight is in the way.
+     */
+    private static void optimizeNeverDropsItemsAlsoOnTheFloor() {
+        Inventory player = new Inventory(Game.INVENTORY_CAPACITY, List.of(Items.ROTTEN_FLESH, Items.ENDER_PEARL));
+        Inventory floor = new Inventory(Game.INVENTORY_CAPACITY, List.of(Items.ROTTEN_FLESH, Items.BLAZE_POWDER));
+
+        InventoryOptimizer.Plan plan = InventoryOptimizer.plan(player.getAllItems(), floor.getAllItems(),
+                player.getCapacity(), InventoryOptimizer.towards(Items.EYE_OF_ENDER));
+        check(!plan.drop().contains(Items.ROTTEN_FLESH), "the plan keeps the item that is on the floor too");
+        check(Inventory.exchange(player, floor, plan.drop(), plan.take()), "the plan can be applied");
+        check(player.getCurrentInventoryWeight() <= player.getCapacity(), "the plan fits");
+    }
+
+    /**
+     * Crafting an item the inventory already holds would swap two ingredients for nothing, so it must not happen.
+     */
+    private static void craftingKeepsIngredientsOfACarriedResult() {
+        // Roomy enough that weight never gets in the way
+        Inventory player = new Inventory(Integer.MAX_VALUE,
+                List.of(Items.BLAZE_POWDER, Items.ENDER_PEARL, Items.EYE_OF_ENDER));
+
+        check(Inventory.transfer(new Inventory(Integer.MAX_VALUE, List.of(Items.EYE_OF_ENDER)), player,
+                Items.EYE_OF_ENDER).isEmpty(), "an inventory won't take a second copy of an item");
+        check(player.addItem(Items.EYE_OF_ENDER).isEmpty(), "an item already held isn't added again");
+        check(player.replaceItems(Items.BLAZE_POWDER, Items.ENDER_PEARL, Items.EYE_OF_ENDER).isEmpty(),
+                "crafting an item already held is refused");
+        check(player.contains(Items.BLAZE_POWDER) && player.contains(Items.ENDER_PEARL),
+                "a refused craft keeps its ingredients");
+    }
+
+    private static void check(boolean holds, String what) {
+        if (!holds) throw new IllegalStateException("Check failed: " + what);
+        System.out.println("ok   " + what);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Heap footprint benchmark for inventory storage.
+ * <p>Fills a million inventories' worth of storage with the same items twice: once as the hash map per inventory
+ * that inventories used to be backed by, and once as the {@link ItemSet}s they use now. The bytes per inventory are
+ * the growth of the used heap after a full GC, for empty inventories, a few items and more than the small layout
+ * holds.</p>
+ */
+public class InventoryFootprint {
+    private static final int DEFAULT_INVENTORIES = 1_000_000;
+    private static final int[] ITEM_COUNTS = {0, 1, 3, ItemSet.SMALL_LIMIT + 1};
+
+    /**
+     * Runs the benchmark. Run with a heap big enough for the largest round, e.g. {@code -Xmx2g}.
+     *
+     * @param args Optional number of inventories per round.
+     */
+    public static void main(String[] args) {
+        int inventories = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_INVENTORIES;
+        System.out.printf("%6s %16s %16s %8s%n", "items", "hash map B/inv", "item set B/inv", "saved");
+        for (int count : ITEM_COUNTS) {
+            // Made up items, the catalog may have fewer than the round asks for
+            List<Item> items = IntStream.range(0, count)
+                    .mapToObj(id -> new Item(id, "item" + id, 1, true, 0))
+                    .toList();
+
+            double hashMap = bytesPer(inventories, i -> {
+                Map<Integer, Item> map = new HashMap<>();
+                items.forEach(item -> map.put(item.getId(), item));
+                return map;
+            });
+            double itemSet = bytesPer(inventories, i -> {
+                // As in an inventory, empty ones share a set
+                ItemSet set = items.isEmpty() ? ItemSet.EMPTY : new ItemSet();
+                items.forEach(set::add);
+                return set;
+            });
+
+            System.out.printf("%6d %16.1f %16.1f %7.0f%%%n",
+                    items.size(), hashMap, itemSet, 100 * (1 - itemSet / hashMap));
+        }
+    }
+
+    /**
+     * Measures how much heap a number of objects take.
+     *
+     * @param count  The number of objects to create.
+     * @param create Creates the i-th object.
+     * @return The average heap growth per object in bytes.
+     */
+    private static double bytesPer(int count, Function<Integer, Object> create) {
+        Object[] objects = new Object[count];
+        long before = usedHeap();
+
+        for (int i = 0; i < count; i++) {
+            objects[i] = create.apply(i);
+        }
+
+        long after = usedHeap();
+        // Keep the objects reachable until measured
+        if (objects[count - 1] == null) throw new IllegalStateException();
+        return (after - before) / (double) count;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Works out the most valuable items a player can carry from what they have and what lies in their room, so one
+ * command replaces a series of drops and pickups.
+ * <p>Choosing the items is a 0/1 knapsack. Weights are rounded up to steps of {@link #WEIGHT_STEP} kg, which keeps
+ * the table small, {@code capacity / WEIGHT_STEP} cells per item, and never lets a plan exceed the capacity. Among
+ * plans of equal value the one moving the fewest items wins, so a player isn't made to juggle for nothing.</p>
+ */
+public final class InventoryOptimizer {
+    static final double WEIGHT_STEP = 0.1;
+    // What the goal of a value model is worth, its ingredients are worth half of what they make
+    static final double GOAL_VALUE = 100;
+    // Values are compared in thousandths
+    private static final double VALUE_SCALE = 1000;
+    private static final double ROUNDING = 1e-9;
+
+    private InventoryOptimizer() {
+    }
+
+    /**
+     * A value model for working towards an item: the item itself is worth {@link #GOAL_VALUE}, the ingredients of a
+     * recipe for a valued item are worth half of it, and a weapon is worth at least its damage. Anything else is
+     * worth nothing.
+     *
+     * @param goal The item to work towards.
+     * @return The value of every item.
+     */
+    public static ToDoubleFunction<Item> towards(Item goal) {
+        double[] values = new double[Items.count()];
+        values[goal.getId()] = GOAL_VALUE;
+
+        // Pass value down the recipes until it settles, every pass reaches one ingredient further from the goal
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Recipe recipe : Recipes.all()) {
+                double value = values[recipe.result().getId()] / 2;
+                for (Item ingredient : List.of(recipe.ingredient1(), recipe.ingredient2())) {
+                    if (value > values[ingredient.getId()]) {
+                        values[ingredient.getId()] = value;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        return item -> Math.max(values[item.getId()], item.getDamage());
+    }
+
+    /**
+     * Chooses the items to carry.
+     *
+     * @param carried  The items the player carries.
+     * @param floor    The items in the player's room. Only pickable ones are taken. An inventory holds one of each
+     *                 item, so items the player carries that lie here too are neither taken nor dropped.
+     * @param capacity The weight the player can carry, in kg.
+     * @param value    The value model.
+     * @return The items to drop and pick up, empty lists if the player already carries the best items.
+     */
+    public static Plan plan(List<Item> carried, List<Item> floor, double capacity, ToDoubleFunction<Item> value) {
+        // Carried items the floor already has can't be dropped there, they take up part of the capacity for good
+        List<Item> droppable = new ArrayList<>();
+        for (Item item : carried) {
+            if (floor.contains(item)) {
+                capacity -= item.getWeight();
+            } else {
+                droppable.add(item);
+            }
+        }
+
+        List<Item> candidates = new ArrayList<>(droppable);
+        floor.stream()
+                .filter(item -> item.isPickable() && !carried.contains(item))
+                .forEach(candidates::add);
+
+        int n = candidates.size();
+        int steps = Math.max((int) Math.floor(capacity / WEIGHT_STEP + ROUNDING), 0);
+        // Keeping a carried item saves a drop and leaving an item on the floor saves a pickup, worth less than any
+        // difference in value
+        long tieBreak = 2L * (n + 1);
+
+        long[] best = new long[steps + 1];
+        boolean[][] chosen = new boolean[n][steps + 1];
+
+        for (int i = 0; i < n; i++) {
+            Item item = candidates.get(i);
+            int weight = steps(item.getWeight());
+            long gain = Math.round(value.applyAsDouble(item) * VALUE_SCALE) * tieBreak + (i < droppable.size() ? 1 : -1);
+
+            // Downwards, so every item is counted at most once
+            for (int w = steps; w >= weight; w--) {
+                long with = best[w - weight] + gain;
+                if (with > best[w]) {
+                    best[w] = with;
+                    chosen[i][w] = true;
+                }
+            }
+        }
+
+        // Walk the choices back from the full capacity
+        boolean[] keep = new boolean[n];
+        for (int i = n - 1, w = steps; i >= 0; i--) {
+            if (chosen[i][w]) {
+                keep[i] = true;
+                w -= steps(candidates.get(i).getWeight());
+            }
+        }
+
+        List<Item> drop = new ArrayList<>();
+        List<Item> take = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            boolean isCarried = i < droppable.size();
+            if (isCarried && !keep[i]) drop.add(candidates.get(i));
+            if (!isCarried && keep[i]) take.add(candidates.get(i));
+        }
+        return new Plan(drop, take);
+    }
+
+    /**
+     * @return The weight in whole steps, rounded up, ignoring the rounding error of e.g. 3.0 / 0.1.
+     */
+    private static int steps(double kg) {
+        return (int) Math.ceil(kg / WEIGHT_STEP - ROUNDING);
+    }
+
+    /**
+     * How to get from the items a player carries to the best ones.
+     *
+     * @param drop The items to put on the floor.
+     * @param take The items to pick up.
+     */
+    public record Plan(List<Item> drop, List<Item> take) {
+        public boolean isEmpty() {
+            return drop.isEmpty() && take.isEmpty();
+        }
+    }
+}
\ No newline at end of file
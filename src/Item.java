@@ -1,28 +1,35 @@
 /**
- * Repository of all Items in Mini Minecraft.
+ * An item type of Mini Minecraft, loaded from the catalog by {@link Items}.
+ * <p>Every item type has a compact id, its position in the catalog, which the engine uses to store and compare items.
+ * Names are only for players: they are resolved to items once, when a command is parsed.</p>
+ * <p>Items are equal if their ids are, so an item stays the same item when a reload changes its definition.</p>
  */
-public enum Item {
-    ENDER_PEARL("ender_pearl", 3.0, true),
-    IRON_SWORD("iron_sword", 5.0, true),
-    BLAZE_POWDER("blaze_powder", 2.0, true),
-    ROTTEN_FLESH("rotten_flesh", 1.0, true),
-    BLAZE_ROD("blaze_rod", 4.0, false),
-    EYE_OF_ENDER("eye_of_ender", 5.0, false);
-
+public final class Item {
+    private final int id;
     private final String name;
     private final double weight;
     private final boolean isPickable;
+    private final int damage;
 
     /**
-     * Constructs an Item enum with the specified name and weight.
+     * Constructs an item type.
      *
-     * @param name   the name of the item.
-     * @param weight the weight of the item.
+     * @param id         the id of the item, its position in the catalog.
+     * @param name       the name of the item.
+     * @param weight     the weight of the item.
+     * @param isPickable whether players can pick the item up.
+     * @param damage     the damage the item deals as a weapon, or 0 if it is not a weapon.
      */
-    Item(String name, double weight, boolean isPickable) {
+    Item(int id, String name, double weight, boolean isPickable, int damage) {
+        this.id = id;
         this.name = name;
         this.weight = weight;
         this.isPickable = isPickable;
+        this.damage = damage;
+    }
+
+    public int getId() {
+        return id;
     }
 
     public String getName() {
@@ -37,6 +44,20 @@ public enum Item {
         return isPickable;
     }
 
+    public int getDamage() {
+        return damage;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Item other && other.id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
     @Override
     public String toString() {
         return name + " (" + weight + "kg)";
@@ -0,0 +1,217 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The items of an {@link Inventory}, stored by id in a layout that fits how many there are.
+ * <p>Most inventories are empty or hold a few items. Empty inventories share {@link #EMPTY}, and items start out in
+ * a small sorted array of ids. Only past {@link #SMALL_LIMIT} items do they move into an open addressing hash table
+ * of ids, and back once they fit again. Either way ids are plain ints, never boxed. The total weight is kept up to
+ * date as items come and go.</p>
+ * <p>Adding and removing weigh the {@link Item} given. Only ids are stored, so {@link #items()} and {@link #reweigh()}
+ * look the items up in the catalog, which after a content reload hands out their new definitions.</p>
+ * <p>Not thread safe, the inventory's lock guards it.</p>
+ */
+class ItemSet {
+    static final int SMALL_LIMIT = 8;
+
+    private static final int[] NO_IDS = new int[0];
+    // Marks a free slot of the hash table, ids are never negative
+    private static final int FREE = -1;
+
+    /**
+     * Shared by all empty inventories until they get their first item. Never add to it.
+     */
+    static final ItemSet EMPTY = new ItemSet();
+
+    // Sorted ids while small, a hash table of ids with linear probing once large
+    private int[] ids = NO_IDS;
+    private boolean hashed;
+    private int size;
+    private double weight;
+
+    /**
+     * @param item The item to look for.
+     * @return true if the item is in the set.
+     */
+    boolean contains(Item item) {
+        return hashed ? slotOf(item.getId()) >= 0 : indexOf(item.getId()) >= 0;
+    }
+
+    /**
+     * @param item The item to add.
+     * @return true if the item was added, false if it was already there.
+     */
+    boolean add(Item item) {
+        int id = item.getId();
+
+        if (hashed) {
+            if (slotOf(id) >= 0) return false;
+            // Keep the table at most half full
+            if ((size + 1) * 2 > ids.length) rehash(ids.length * 2);
+            insertHashed(id);
+        } else {
+            int index = indexOf(id);
+            if (index >= 0) return false;
+
+            if (size == SMALL_LIMIT) {
+                toTable();
+                insertHashed(id);
+            } else {
+                insertSorted(-index - 1, id);
+            }
+        }
+
+        size++;
+        weight += item.getWeight();
+        return true;
+    }
+
+    /**
+     * @param item The item to remove.
+     * @return true if the item was removed, false if it wasn't there.
+     */
+    boolean remove(Item item) {
+        int id = item.getId();
+
+        if (hashed) {
+            int slot = slotOf(id);
+            if (slot < 0) return false;
+            removeHashed(slot);
+        } else {
+            int index = indexOf(id);
+            if (index < 0) return false;
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        }
+
+        size--;
+        // Start from an exact zero rather than a sum of rounding errors
+        weight = size == 0 ? 0 : weight - item.getWeight();
+
+        if (size == 0) {
+            ids = NO_IDS;
+            hashed = false;
+        } else if (hashed && size <= SMALL_LIMIT / 2) {
+            toArray();
+        }
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double weight() {
+        return weight;
+    }
+
+    /**
+     * Adds the weight up again, after a content reload changed the weights of items.
+     */
+    void reweigh() {
+        weight = 0;
+        for (Item item : items()) {
+            weight += item.getWeight();
+        }
+    }
+
+    /**
+     * @return The items, in order of id while the set is small.
+     */
+    List<Item> items() {
+        List<Item> items = new ArrayList<>(size);
+        if (hashed) {
+            for (int id : ids) {
+                if (id != FREE) items.add(Items.get(id));
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                items.add(Items.get(ids[i]));
+            }
+        }
+        return items;
+    }
+
+    private int indexOf(int id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    private void insertSorted(int index, int id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(1, size * 2));
+        }
+
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+    }
+
+    /**
+     * @return The slot holding the id, or -1 if it isn't in the table.
+     */
+    private int slotOf(int id) {
+        int mask = ids.length - 1;
+        for (int slot = home(id, mask); ids[slot] != FREE; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) return slot;
+        }
+        return -1;
+    }
+
+    private void insertHashed(int id) {
+        int mask = ids.length - 1;
+        int slot = home(id, mask);
+        while (ids[slot] != FREE) {
+            slot = (slot + 1) & mask;
+        }
+        ids[slot] = id;
+    }
+
+    /**
+     * Frees a slot, moving later ids of the same run back so no lookup stops early at the hole.
+     */
+    private void removeHashed(int slot) {
+        int mask = ids.length - 1;
+        int hole = slot;
+
+        for (int next = (slot + 1) & mask; ids[next] != FREE; next = (next + 1) & mask) {
+            int home = home(ids[next], mask);
+            // The id may fill the hole if the hole lies between its home slot and where it is
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                ids[hole] = ids[next];
+                hole = next;
+            }
+        }
+
+        ids[hole] = FREE;
+    }
+
+    private void toTable() {
+        int[] sorted = ids;
+        ids = new int[Integer.highestOneBit(SMALL_LIMIT) * 4];
+        Arrays.fill(ids, FREE);
+        hashed = true;
+
+        for (int i = 0; i < size; i++) {
+            insertHashed(sorted[i]);
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] old = ids;
+        ids = new int[capacity];
+        Arrays.fill(ids, FREE);
+
+        for (int id : old) {
+            if (id != FREE) insertHashed(id);
+        }
+    }
+
+    private void toArray() {
+        ids = Arrays.stream(ids).filter(id -> id != FREE).sorted().toArray();
+        hashed = false;
+    }
+
+    private static int home(int id, int mask) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,165 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The catalog of all item types in Mini Minecraft, loaded from {@code items.txt} on the classpath.
+ * <p>Each line of the catalog is an item's name, weight, whether it is pickable and, for weapons, its damage. Items
+ * are interned to the id of their line, so the engine stores and compares ints, and looks items up by id in an
+ * array. Names are only resolved through {@link #fromName}, when a player's command is parsed.</p>
+ * <p>The catalog is one immutable snapshot, replaced whole when {@link ContentReloader} reloads it, so a lookup
+ * sees either the old or the new catalog. Ids never change across reloads.</p>
+ */
+public class Items {
+    static final String CATALOG = "items.txt";
+
+    private static volatile Catalog current = load(Items.class.getResourceAsStream(CATALOG));
+
+    // Items the game's rules refer to
+    public static final Item ENDER_PEARL = require("ender_pearl");
+    public static final Item IRON_SWORD = require("iron_sword");
+    public static final Item BLAZE_POWDER = require("blaze_powder");
+    public static final Item ROTTEN_FLESH = require("rotten_flesh");
+    public static final Item BLAZE_ROD = require("blaze_rod");
+    public static final Item EYE_OF_ENDER = require("eye_of_ender");
+
+    /**
+     * Resolves an item name, e.g. from a player's command.
+     *
+     * @param name The name of the item.
+     * @return The item, or empty if there is no item of that name.
+     */
+    public static Optional<Item> fromName(String name) {
+        return current.fromName(name);
+    }
+
+    /**
+     * @param id The id of the item.
+     * @return The item with the id.
+     */
+    public static Item get(int id) {
+        return current.byId()[id];
+    }
+
+    /**
+     * @return The number of item types, one more than the highest id.
+     */
+    public static int count() {
+        return current.byId().length;
+    }
+
+    /**
+     * @return All item types, in order of id.
+     */
+    public static List<Item> all() {
+        return List.of(current.byId());
+    }
+
+    private static Item require(String name) {
+        return current.fromName(name)
+                .orElseThrow(() -> new IllegalStateException(CATALOG + " has no item " + name));
+    }
+
+    /**
+     * @return The catalog in use.
+     */
+    static Catalog catalog() {
+        return current;
+    }
+
+    /**
+     * Replaces the catalog in use, see {@link ContentReloader}.
+     *
+     * @param catalog The new catalog, checked with {@link Catalog#checkReplaces}.
+     */
+    static void install(Catalog catalog) {
+        current = catalog;
+    }
+
+    /**
+     * Reads a catalog, giving every item the next id.
+     *
+     * @param in The catalog's text, closed when read.
+     * @return The catalog.
+     * @throws IllegalStateException if the catalog is missing or not valid.
+     */
+    static Catalog load(InputStream in) {
+        if (in == null) {
+            throw new IllegalStateException(CATALOG + " not found");
+        }
+
+        List<Item> items = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+
+                // Skip blank lines and comments
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) continue;
+
+                items.add(parse(items.size(), line, lineNumber));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + CATALOG, e);
+        }
+
+        Map<String, Item> byName = new HashMap<>();
+        for (Item item : items) {
+            if (byName.put(item.getName(), item) != null) {
+                throw new IllegalStateException(CATALOG + " has item " + item.getName() + " twice");
+            }
+        }
+        return new Catalog(items.toArray(Item[]::new), Map.copyOf(byName));
+    }
+
+    private static Item parse(int id, String line, int lineNumber) {
+        String[] fields = line.split("\\s+");
+        if (fields.length < 3 || fields.length > 4) {
+            throw new IllegalStateException(CATALOG + ":" + lineNumber + ": expected name, weight, pickable [damage]");
+        }
+
+        try {
+            return new Item(id, fields[0], Double.parseDouble(fields[1]), Boolean.parseBoolean(fields[2]),
+                    fields.length == 4 ? Integer.parseInt(fields[3]) : 0);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException(CATALOG + ":" + lineNumber + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * One version of the catalog, never changed once loaded.
+     *
+     * @param byId   The items, indexed by id.
+     * @param byName The items by name.
+     */
+    record Catalog(Item[] byId, Map<String, Item> byName) {
+        Optional<Item> fromName(String name) {
+            return Optional.ofNullable(byName.get(name));
+        }
+
+        /**
+         * Checks this catalog can replace another without changing what the ids in the world mean.
+         *
+         * @param previous The catalog in use.
+         * @throws IllegalStateException if an item was removed or moved to another id.
+         */
+        void checkReplaces(Catalog previous) {
+            for (Item item : previous.byId()) {
+                if (item.getId() >= byId.length || !byId[item.getId()].getName().equals(item.getName())) {
+                    throw new IllegalStateException(CATALOG + " no longer has " + item.getName() + " at line "
+                            + (item.getId() + 1) + " of its items, new items go at the end");
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Synthetic load for the multiplayer {@link Server}.
+ * <p>Spins up rounds of bot players at increasing concurrency. Every bot connects over the loopback socket and keeps
+ * issuing commands from its {@link BotProfile}, timing each one from sending the line to receiving the prompt. After
+ * each round the throughput, latency percentiles and error rate are printed, so the round where latency climbs while
+ * throughput stops growing shows the saturation point of the build.</p>
+ */
+public class LoadGenerator {
+    private static final int[] DEFAULT_LEVELS = {10, 100, 1000, 5000};
+    private static final long DEFAULT_ROUND_SECONDS = 10;
+    private static final int READ_TIMEOUT_MILLIS = 5000;
+    private static final String UNKNOWN_COMMAND = "I don't know what you mean...";
+
+    private final int port;
+    private final long roundNanos;
+
+    /**
+     * Creates a load generator for a server on the local machine.
+     *
+     * @param port         The port the server listens on.
+     * @param roundSeconds How long each round of bots runs for.
+     */
+    public LoadGenerator(int port, long roundSeconds) {
+        this.port = port;
+        this.roundNanos = TimeUnit.SECONDS.toNanos(roundSeconds);
+    }
+
+    /**
+     * Starts a server in this JVM and runs the load rounds against it.
+     *
+     * @param args Optional round length in seconds followed by the bot counts to run, e.g. {@code 10 10 100 1000}.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long roundSeconds = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_ROUND_SECONDS;
+        int[] levels = args.length > 1
+                ? Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray()
+                : DEFAULT_LEVELS;
+
+        Server server = new Server(0);
+        Thread serverThread = Thread.ofPlatform().name("server").start(server::run);
+
+        LoadGenerator generator = new LoadGenerator(server.getPort(), roundSeconds);
+        System.out.printf("%8s %10s %10s %9s %9s %9s %8s%n",
+                "bots", "commands", "cmd/s", "p50 ms", "p95 ms", "p99 ms", "errors");
+        for (int bots : levels) {
+            System.out.println(generator.runRound(bots));
+        }
+
+        serverThread.interrupt();
+    }
+
+    /**
+     * Runs one round with the given number of concurrent bots, cycling through the profiles.
+     *
+     * @param bots The number of bots to run.
+     * @return The results of the round.
+     */
+    public Round runRound(int bots) throws InterruptedException {
+        BotProfile[] profiles = BotProfile.values();
+        long deadline = System.nanoTime() + roundNanos;
+        List<Future<Bot>> futures = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < bots; i++) {
+                Bot bot = new Bot(profiles[i % profiles.length], new Random(i));
+                futures.add(executor.submit(() -> bot.run(deadline)));
+            }
+        }
+
+        List<Bot> finished = new ArrayList<>();
+        for (Future<Bot> future : futures) {
+            try {
+                finished.add(future.get());
+            } catch (Exception e) {
+                throw new IllegalStateException("Bot failed unexpectedly", e);
+            }
+        }
+
+        return Round.of(bots, roundNanos, finished);
+    }
+
+    /**
+     * A bot player issuing commands from its profile until the round is over.
+     */
+    private class Bot {
+        private final BotProfile profile;
+        private final Random random;
+        private long[] latencies = new long[64];
+        private int commands;
+        private int errors;
+
+        Bot(BotProfile profile, Random random) {
+            this.profile = profile;
+            this.random = random;
+        }
+
+        Bot run(long deadline) {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+
+                // Wait for the welcome message
+                readResponse(in);
+
+                while (System.nanoTime() < deadline) {
+                    String line = BotProfile.toLine(profile.nextCommand(random));
+
+                    long start = System.nanoTime();
+                    out.println(line);
+                    boolean understood = readResponse(in);
+                    record(System.nanoTime() - start, understood);
+                }
+            } catch (IOException e) {
+                // Refused, dropped or timed out connections count as one failed command
+                errors++;
+            }
+
+            return this;
+        }
+
+        /**
+         * Reads the server's output up to the next prompt.
+         *
+         * @return false if the server did not understand the command.
+         */
+        private boolean readResponse(BufferedReader in) throws IOException {
+            boolean understood = true;
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                if (line.equals(Server.PROMPT)) {
+                    return understood;
+                }
+                if (line.equals(UNKNOWN_COMMAND)) {
+                    understood = false;
+                }
+            }
+
+            throw new IOException("Server closed the connection");
+        }
+
+        private void record(long latency, boolean understood) {
+            if (commands == latencies.length) {
+                latencies = Arrays.copyOf(latencies, commands * 2);
+            }
+            latencies[commands++] = latency;
+
+            if (!understood) errors++;
+        }
+    }
+
+    /**
+     * The results of one round of bots.
+     *
+     * @param bots       The number of bots in the round.
+     * @param commands   The number of commands answered.
+     * @param throughput The commands answered per second.
+     * @param p50        The median command latency in milliseconds.
+     * @param p95        The 95th percentile command latency in milliseconds.
+     * @param p99        The 99th percentile command latency in milliseconds.
+     * @param errorRate  The fraction of commands that failed or were not understood.
+     */
+    public record Round(int bots, int commands, double throughput, double p50, double p95, double p99,
+                        double errorRate) {
+
+        private static Round of(int bots, long roundNanos, List<Bot> finished) {
+            long[] latencies = finished.stream()
+                    .flatMapToLong(bot -> Arrays.stream(bot.latencies, 0, bot.commands))
+                    .sorted()
+                    .toArray();
+            int errors = finished.stream().mapToInt(bot -> bot.errors).sum();
+            int attempts = Math.max(1, latencies.length + errors);
+
+            return new Round(bots, latencies.length, latencies.length / (roundNanos / 1e9),
+                    percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                    (double) errors / attempts);
+        }
+
+        private static double percentile(long[] sorted, double fraction) {
+            if (sorted.length == 0) return 0;
+
+            int index = (int) Math.ceil(fraction * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%8d %10d %10.0f %9.2f %9.2f %9.2f %7.2f%%",
+                    bots, commands, throughput, p50, p95, p99, errorRate * 100);
+        }
+    }
+}
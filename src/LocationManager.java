@@ -1,11 +1,22 @@
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Tracks where every entity is and where it has been.
+ * <p>Safe to use from several threads at once: entities and rooms are tracked in concurrent structures and each
+ * entity's history is guarded by its own lock, so there is no lock shared by the whole world.</p>
+ */
 public class LocationManager {
     public static final LocationManager INSTANCE = new LocationManager();
 
-    private final Map<Entity, List<Room>> locationHistory = new HashMap<>();
+    private final Map<Entity, List<Room>> locationHistory = new ConcurrentHashMap<>();
+    // Index of who is in each room, so room queries only touch that room's occupants
+    private final Map<Room, Set<Entity>> occupants = new EnumMap<>(Room.class);
 
     private LocationManager() {
+        for (Room room : Room.values()) {
+            occupants.put(room, ConcurrentHashMap.newKeySet());
+        }
     }
 
     /**
@@ -17,6 +28,9 @@ public class LocationManager {
     public void spawn(Entity entity, Room startingRoom) {
         // Initialize the location history for the entity with the starting room
         locationHistory.put(entity, new ArrayList<>(List.of(startingRoom)));
+        occupants.get(startingRoom).add(entity);
+        entity.inventory.setInWorld(true);
+        WorldEvents.INSTANCE.entitySpawned(entity, startingRoom);
     }
 
     /**
@@ -27,7 +41,13 @@ public class LocationManager {
      */
     public Room getLocation(Entity entity) {
         List<Room> history = locationHistory.get(entity);
-        return history != null && !history.isEmpty() ? history.getLast() : null;
+        if (history == null) {
+            return null;
+        }
+
+        synchronized (history) {
+            return !history.isEmpty() ? history.getLast() : null;
+        }
     }
 
     /**
@@ -37,7 +57,24 @@ public class LocationManager {
      */
     public void setLocation(Entity entity, Room destination) {
         // Move the entity by adding the next room to the location history list
-        locationHistory.get(entity).add(destination);
+        List<Room> history = locationHistory.get(entity);
+        synchronized (history) {
+            Room from = history.getLast();
+            occupants.get(from).remove(entity);
+            history.add(destination);
+            occupants.get(destination).add(entity);
+
+            WorldEvents.INSTANCE.entityMoved(entity, from, destination);
+        }
+    }
+
+    /**
+     * Gets all entities currently in the world.
+     *
+     * @return A set of the tracked entities.
+     */
+    public Set<Entity> getEntities() {
+        return Set.copyOf(locationHistory.keySet());
     }
 
     /**
@@ -47,10 +84,7 @@ public class LocationManager {
      * @return A list of entities in the room.
      */
     public List<Entity> getEntitiesInRoom(Room room) {
-        return locationHistory.entrySet().stream()
-                .filter(entry -> entry.getValue().getLast() == room)
-                .map(Map.Entry::getKey)
-                .toList();
+        return List.copyOf(occupants.get(room));
     }
 
     /**
@@ -62,7 +96,7 @@ public class LocationManager {
      */
     public Optional<Room> moveEntity(Entity entity, Direction direction) {
         Room currentRoom = getLocation(entity);
-        Room nextRoom = currentRoom.exits.get(direction);
+        Room nextRoom = currentRoom.getExit(direction);
 
         // There is no room in that direction
         if (nextRoom == null) {
@@ -83,13 +117,44 @@ public class LocationManager {
      */
     public Optional<Room> goBack(Entity entity) {
         List<Room> history = locationHistory.get(entity);
-        if (history == null || history.size() <= 1) {
+        if (history == null) {
             return Optional.empty();
         }
 
-        Room previousRoom = history.get(history.size() - 2);
-        setLocation(entity, previousRoom);
-        return Optional.of(previousRoom);
+        synchronized (history) {
+            if (history.size() <= 1) {
+                return Optional.empty();
+            }
+
+            Room previousRoom = history.get(history.size() - 2);
+            setLocation(entity, previousRoom);
+            return Optional.of(previousRoom);
+        }
+    }
+
+    /**
+     * Undoes the entity's last move, forgetting it ever happened, e.g. for {@link WorldHistory}.
+     *
+     * @param entity The entity to move back.
+     * @param from   The room the entity was in before its last move.
+     */
+    public void revertMove(Entity entity, Room from) {
+        List<Room> history = locationHistory.get(entity);
+        if (history == null) {
+            return;
+        }
+
+        synchronized (history) {
+            Room to = history.removeLast();
+            // Keep the history consistent even if it was changed since
+            if (history.isEmpty() || history.getLast() != from) {
+                history.add(from);
+            }
+
+            occupants.get(to).remove(entity);
+            occupants.get(from).add(entity);
+            WorldEvents.INSTANCE.entityMoved(entity, to, from);
+        }
     }
 
     /**
@@ -98,6 +163,13 @@ public class LocationManager {
      * @param entity The entity to remove.
      */
     public void removeEntity(Entity entity) {
-        locationHistory.remove(entity);
+        List<Room> history = locationHistory.remove(entity);
+        if (history != null) {
+            synchronized (history) {
+                occupants.get(history.getLast()).remove(entity);
+                WorldEvents.INSTANCE.entityRemoved(entity, history.getLast());
+            }
+            entity.inventory.setInWorld(false);
+        }
     }
 }
\ No newline at end of file
@@ -1,6 +1,33 @@
+import java.io.IOException;
+
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // Run as a multiplayer server with `--server [port]`
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? parsePort(args[1]) : Server.DEFAULT_PORT;
+            new Server(port).run();
+            return;
+        }
+
         Game game = new Game();
         game.play();
     }
-}
\ No newline at end of file
+
+    /**
+     * @param arg The port given on the command line.
+     * @return The port, the program exits with a usage message if it isn't one.
+     */
+    private static int parsePort(String arg) {
+        try {
+            int port = Integer.parseInt(arg);
+            if (port >= 0 && port <= 0xFFFF) return port;
+        } catch (NumberFormatException e) {
+            // Not a number, reported below
+        }
+
+        System.err.println("Not a port: " + arg);
+        System.err.println("Usage: java Main [--server [port]]");
+        System.exit(2);
+        return -1;
+    }
+}
@@ -4,63 +4,180 @@ import java.util.Set;
 
 /**
  * Represents a Mob Entity in the game, which is a type of {@link Entity}.
- * Mobs have an inventory with a fixed capacity and an associated action that can be executed.
+ * Mobs have an inventory with a fixed capacity and behave as their {@link MobType} defines.
+ * <p>The package-private methods are the conditions and actions behaviour trees are compiled to, see
+ * {@link MobTypes}.</p>
  */
-abstract public class Mob extends Entity {
+public class Mob extends Entity {
     private static final int MOB_INVENTORY_CAPACITY = 50;
-    private final double movementProbability;
-    private Runnable action;
+    // Replaced by a content reload, see ContentReloader
+    private volatile MobType type;
 
     /**
-     * Constructs a new Mob with the given name and initial items.
+     * Constructs a new Mob of the given type, carrying the type's drops.
      *
-     * @param name         The name of the mob.
-     * @param initialItems The list of initial items the mob starts with.
+     * @param type The type of the mob.
      */
-    public Mob(String name, List<Item> initialItems, double movementProbability) {
-        super(name, MOB_INVENTORY_CAPACITY, initialItems);
-        this.movementProbability = movementProbability;
+    public Mob(MobType type) {
+        super(type.getName(), MOB_INVENTORY_CAPACITY, type.getDrops(), type.getMaxHealth(), type.getArmor());
+        this.type = type;
     }
 
     /**
-     * Executes the mob's action, if any.
+     * Restores the mob's health and initial items so a dead mob can be spawned again, see {@link MobPool}.
      */
-    public void performAction() {
-        if (action != null) {
-            action.run();
-        }
+    void reset() {
+        setHealth(getMaxHealth());
+        inventory.clear();
+        inventory.addItems(type.getDrops());
     }
 
     /**
-     * Autonomous movement using chance. Find nearest exits and take a random one.
+     * Moves the mob onto a new definition of its type, keeping its health and items until it respawns.
+     *
+     * @param type The reloaded type, with the same id.
      */
-    public void autoMove() {
-        // Sometimes move, sometimes don't to simulate autonomy
-        if (RANDOM.nextDouble() > this.movementProbability) {
-            return;
-        }
+    void migrate(MobType type) {
+        this.type = type;
+    }
+
+    /**
+     * @return The type of the mob.
+     */
+    public MobType getType() {
+        return type;
+    }
 
-        Room currentRoom = getLocation();
-        Set<Direction> exits = currentRoom.getExits();
+    /**
+     * Runs the mob's behaviour for one mob tick.
+     */
+    public void act() {
+        type.getBehaviour().act(this);
+    }
+
+    /**
+     * Moves through a random exit.
+     *
+     * @return true if the mob moved.
+     */
+    boolean wander() {
+        Set<Direction> exits = getLocation().getExits();
 
         // Nowhere to go, do nothing
-        if (exits.isEmpty()) return;
+        if (exits.isEmpty()) return false;
 
-        Direction randomExit = new ArrayList<>(exits).get(RANDOM.nextInt(exits.size()));
+        return moveThrough(new ArrayList<>(exits).get(RANDOM.nextInt(exits.size())));
+    }
+
+    /**
+     * Moves into a room next to this one that has a player in it.
+     *
+     * @return true if the mob moved.
+     */
+    boolean chase() {
+        Room here = getLocation();
+
+        for (Direction direction : here.getExits()) {
+            if (hasPlayer(here.getExit(direction))) {
+                return moveThrough(direction);
+            }
+        }
+        return false;
+    }
 
-        // Move to random location
-        this.move(randomExit).ifPresent(
-                newRoom -> System.out.println("* " + getName() + " has moved to " + newRoom.name() + " *")
-        );
+    /**
+     * Moves away from players in the mob's room, into a room next to it without players.
+     *
+     * @return true if the mob fled.
+     */
+    boolean flee() {
+        Room here = getLocation();
+        if (!hasPlayer(here)) return false;
+
+        List<Direction> safe = here.getExits().stream()
+                .filter(direction -> !hasPlayer(here.getExit(direction)))
+                .toList();
+        if (safe.isEmpty()) return false;
+
+        return moveThrough(safe.get(RANDOM.nextInt(safe.size())));
     }
 
     /**
-     * Sets the action that the mob will perform on {@link Room} change.
+     * Teleports to a random room.
      *
-     * @param action The action to be set.
+     * @param destinations The rooms to pick from, by weight.
+     * @return true if the mob teleported.
      */
-    public void addAction(Runnable action) {
-        this.action = action;
+    boolean teleport(TeleportSampler destinations) {
+        Room origin = getLocation();
+
+        return teleportToRandomRoom(destinations).map(destination -> {
+            Notifications.INSTANCE.post(origin, "* " + getName() + " has teleported to " + destination.name() + " *",
+                    "* You hear something teleport nearby *");
+            Notifications.INSTANCE.post(destination, "* " + getName() + " appears out of nowhere *", null);
+            return true;
+        }).orElse(false);
+    }
+
+    /**
+     * Makes a noise.
+     *
+     * @param here   What players in the mob's room hear.
+     * @param nearby What players in the rooms next to it hear, or null if it doesn't carry that far.
+     * @return Always true.
+     */
+    boolean makeSound(String here, String nearby) {
+        Notifications.INSTANCE.post(getLocation(), here, nearby);
+        return true;
+    }
+
+    /**
+     * @param probability The chance of success.
+     * @return true with the given probability.
+     */
+    boolean roll(double probability) {
+        return RANDOM.nextDouble() < probability;
+    }
+
+    /**
+     * @param fraction The fraction of its maximum health.
+     * @return true if the mob's health is below the fraction.
+     */
+    boolean isHurt(double fraction) {
+        return getHealth() < fraction * getMaxHealth();
+    }
+
+    /**
+     * @return true if a player is in the mob's room.
+     */
+    boolean isPlayerHere() {
+        return hasPlayer(getLocation());
+    }
+
+    /**
+     * @return true if a player is in a room next to the mob's.
+     */
+    boolean isPlayerNearby() {
+        Room here = getLocation();
+        return here.getExits().stream().anyMatch(direction -> hasPlayer(here.getExit(direction)));
+    }
+
+    /**
+     * Moves through an exit, seen by players in the rooms it leaves and enters.
+     */
+    private boolean moveThrough(Direction direction) {
+        Room from = getLocation();
+
+        return move(direction).map(to -> {
+            Notifications.INSTANCE.post(from, "* " + getName() + " has moved to " + to.name() + " *", null);
+            Notifications.INSTANCE.post(to, "* " + getName() + " has come in from " + from.name() + " *", null);
+            return true;
+        }).orElse(false);
+    }
+
+    private static boolean hasPlayer(Room room) {
+        return LocationManager.INSTANCE.getEntitiesInRoom(room).stream()
+                .anyMatch(entity -> entity instanceof Player);
     }
 
     @Override
@@ -0,0 +1,59 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Recycles dead {@link Mob}s, together with their {@link Inventory}, so long-running worlds with a lot of combat
+ * don't keep allocating new mobs.
+ * <p>Shared by the spawners of all shards of a {@link Server}, so every method is synchronized.</p>
+ */
+public class MobPool {
+    public static final MobPool INSTANCE = new MobPool();
+
+    private final Map<MobType, Deque<Mob>> pools = new HashMap<>();
+
+    private MobPool() {
+    }
+
+    /**
+     * Takes a dead mob of the given type from the pool and resets it, or creates a new one if there is none.
+     *
+     * @param type The type of mob.
+     * @return A mob ready to be spawned.
+     */
+    public synchronized Mob obtain(MobType type) {
+        // Spawners may hold a type from before a content reload
+        type = MobTypes.get(type.getId());
+        Deque<Mob> pool = pools.computeIfAbsent(type, t -> new ArrayDeque<>());
+        Mob pooled = pool.poll();
+
+        // Skip mobs brought back to life since they died, e.g. by undo
+        while (pooled != null && pooled.getLocation() != null) {
+            pooled = pool.poll();
+        }
+
+        if (pooled == null) {
+            return new Mob(type);
+        }
+
+        pooled.reset();
+        return pooled;
+    }
+
+    /**
+     * Returns a dead mob to the pool.
+     *
+     * @param mob The mob, which must no longer be in the world.
+     */
+    public synchronized void release(Mob mob) {
+        pools.computeIfAbsent(mob.getType(), t -> new ArrayDeque<>()).push(mob);
+    }
+
+    /**
+     * Drops all pooled mobs, e.g. once their types were reloaded, so new mobs get the new stats.
+     */
+    public synchronized void clear() {
+        pools.clear();
+    }
+}
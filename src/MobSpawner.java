@@ -0,0 +1,107 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Spawns mobs in a room, keeping up a population of mobs it has spawned.
+ * <p>Whenever fewer of its mobs are alive than the cap, the spawner counts down its cooldown and then spawns a new
+ * one, picked by weight from its mob types. A new spawner fills up straight away. Mobs come from the
+ * {@link MobPool}, and dead ones are returned to it.</p>
+ */
+public class MobSpawner {
+    private static final Random RANDOM = new Random();
+
+    private final Room room;
+    private final int populationCap;
+    private final int cooldownTicks;
+    private final List<SpawnType> types = new ArrayList<>();
+    private final List<Mob> spawned = new ArrayList<>();
+    private int totalWeight;
+    private int cooldown;
+
+    /**
+     * Creates a spawner without any mob types.
+     *
+     * @param room          The room mobs are spawned in.
+     * @param populationCap The most mobs from this spawner alive at once.
+     * @param cooldownTicks The ticks to wait after spawning a mob before spawning the next.
+     */
+    public MobSpawner(Room room, int populationCap, int cooldownTicks) {
+        this.room = room;
+        this.populationCap = populationCap;
+        this.cooldownTicks = cooldownTicks;
+    }
+
+    /**
+     * Adds a type of mob the spawner may spawn.
+     *
+     * @param weight How likely the type is, relative to the spawner's other types.
+     * @param type   The type of mob.
+     * @return This spawner, to add more types.
+     */
+    public MobSpawner withType(int weight, MobType type) {
+        types.add(new SpawnType(weight, type));
+        totalWeight += weight;
+        return this;
+    }
+
+    /**
+     * @return The room mobs are spawned in.
+     */
+    public Room getRoom() {
+        return room;
+    }
+
+    /**
+     * Recycles the spawner's dead mobs and spawns a new one if it is below the cap and off cooldown.
+     *
+     * @param mobs The mobs of the world, which spawned mobs are added to.
+     */
+    public void tick(List<Mob> mobs) {
+        // Entities that died are no longer tracked by the LocationManager
+        spawned.removeIf(mob -> {
+            boolean dead = mob.getLocation() == null;
+            if (dead) {
+                mobs.remove(mob);
+                MobPool.INSTANCE.release(mob);
+            }
+            return dead;
+        });
+
+        if (spawned.size() >= populationCap || types.isEmpty()) return;
+
+        // Only count down while there is room, so the cooldown is a respawn delay
+        if (cooldown > 0) {
+            cooldown--;
+            return;
+        }
+
+        Mob mob = MobPool.INSTANCE.obtain(pickType().type());
+        LocationManager.INSTANCE.spawn(mob, room);
+        spawned.add(mob);
+        mobs.add(mob);
+        cooldown = cooldownTicks;
+    }
+
+    private SpawnType pickType() {
+        int pick = RANDOM.nextInt(totalWeight);
+
+        for (SpawnType type : types) {
+            pick -= type.weight();
+            if (pick < 0) {
+                return type;
+            }
+        }
+
+        throw new IllegalStateException("Weights do not add up to " + totalWeight);
+    }
+
+    /**
+     * A type of mob a spawner may spawn.
+     *
+     * @param weight How likely the type is, relative to the spawner's other types.
+     * @param type   The type of mob.
+     */
+    private record SpawnType(int weight, MobType type) {
+    }
+}
@@ -0,0 +1,71 @@
+import java.util.List;
+
+/**
+ * A kind of mob, as defined in the mob catalog. See {@link MobTypes}.
+ * <p>Every mob type has a compact id, its position in the catalog. Types are equal if their ids are, so a type stays
+ * the same type when a reload changes its definition.</p>
+ */
+public final class MobType {
+    private final int id;
+    private final String name;
+    private final int maxHealth;
+    private final int armor;
+    private final List<Item> drops;
+    private final Behaviour behaviour;
+
+    /**
+     * @param id        The id of the type, its position in the catalog.
+     * @param name      The name of the mob.
+     * @param maxHealth The health the mob spawns with.
+     * @param armor     The damage taken off every hit on the mob.
+     * @param drops     The items the mob carries and drops when killed.
+     * @param behaviour What the mob does every mob tick, compiled from its behaviour tree.
+     */
+    MobType(int id, String name, int maxHealth, int armor, List<Item> drops, Behaviour behaviour) {
+        this.id = id;
+        this.name = name;
+        this.maxHealth = maxHealth;
+        this.armor = armor;
+        this.drops = List.copyOf(drops);
+        this.behaviour = behaviour;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxHealth() {
+        return maxHealth;
+    }
+
+    public int getArmor() {
+        return armor;
+    }
+
+    public List<Item> getDrops() {
+        return drops;
+    }
+
+    public Behaviour getBehaviour() {
+        return behaviour;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MobType other && other.id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,400 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The catalog of all mob types in Mini Minecraft, loaded from {@code mobs.txt} on the classpath.
+ * <p>Each entry is a mob's stats and drops followed by its behaviour tree, see the catalog for the nodes there are.
+ * Trees are compiled once, when the catalog is loaded: every node becomes a lambda bound to its arguments, and
+ * composite nodes become chains of {@link Behaviour#and}, {@link Behaviour#or} and {@link Behaviour#andThen}. Ticking
+ * a mob is then a run of direct calls, and a new mob type costs nothing per tick over a hand-written one.</p>
+ * <p>Like {@link Items}, the catalog is one immutable snapshot that {@link ContentReloader} may replace whole.</p>
+ */
+public class MobTypes {
+    static final String CATALOG = "mobs.txt";
+    // A quoted string or a plain word
+    private static final Pattern TOKEN = Pattern.compile("\"([^\"]*)\"|(\\S+)");
+
+    private static volatile Catalog current = load(MobTypes.class.getResourceAsStream(CATALOG), Items.catalog());
+
+    // Mob types the game's spawners and rules refer to
+    public static final MobType ENDERMAN = require("enderman");
+    public static final MobType ZOMBIE = require("zombie");
+
+    /**
+     * @param name The name of the mob type.
+     * @return The mob type, or empty if there is no mob type of that name.
+     */
+    public static Optional<MobType> fromName(String name) {
+        return current.fromName(name);
+    }
+
+    /**
+     * @param id The id of the mob type.
+     * @return The mob type with the id.
+     */
+    public static MobType get(int id) {
+        return current.byId()[id];
+    }
+
+    /**
+     * @return The number of mob types, one more than the highest id.
+     */
+    public static int count() {
+        return current.byId().length;
+    }
+
+    /**
+     * @return All mob types, in order of id.
+     */
+    public static List<MobType> all() {
+        return List.of(current.byId());
+    }
+
+    /**
+     * The moves a mob of the type makes by chance alone: top-level {@code sequence}s of a {@code chance} and a
+     * {@code teleport} or {@code wander}. Lets a model of the world, such as the {@link Solver}, roll for the mob
+     * without running its tree against the live world. Moves that depend on anything else are left out.
+     *
+     * @param type The mob type.
+     * @return The mob's chance moves, in the order they run.
+     */
+    static List<ChanceMove> chanceMoves(MobType type) {
+        return current.chanceMoves().get(type.getId());
+    }
+
+    private static MobType require(String name) {
+        return current.fromName(name).orElseThrow(() -> new IllegalStateException(CATALOG + " has no mob " + name));
+    }
+
+    /**
+     * @return The catalog in use.
+     */
+    static Catalog catalog() {
+        return current;
+    }
+
+    /**
+     * Replaces the catalog in use, see {@link ContentReloader}.
+     *
+     * @param catalog The new catalog, checked with {@link Catalog#checkReplaces}.
+     */
+    static void install(Catalog catalog) {
+        current = catalog;
+    }
+
+    /**
+     * Reads a catalog into a tree per mob and compiles them, giving every mob type the next id.
+     *
+     * @param in    The catalog's text, closed when read.
+     * @param items The item catalog the mobs' drops are resolved in.
+     * @return The catalog.
+     * @throws IllegalStateException if the catalog is missing or not valid.
+     */
+    static Catalog load(InputStream in, Items.Catalog items) {
+        if (in == null) {
+            throw new IllegalStateException(CATALOG + " not found");
+        }
+
+        List<Node> entries = new ArrayList<>();
+        // The entry being read and the nodes its next line may be a child of, innermost first
+        Deque<Node> parents = new ArrayDeque<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String text;
+            int lineNumber = 0;
+            while ((text = reader.readLine()) != null) {
+                lineNumber++;
+
+                // Skip blank lines and comments
+                if (text.isBlank() || text.strip().startsWith("#")) continue;
+
+                Line line = Line.of(lineNumber, text);
+                Node node = new Node(line);
+
+                if (line.indent() == 0) {
+                    if (!line.word(0).equals("mob")) throw error(line, "expected mob <name> ...");
+                    entries.add(node);
+                    parents.clear();
+                    parents.push(node);
+                    continue;
+                }
+
+                if (parents.isEmpty()) throw error(line, "behaviour before the first mob");
+                while (parents.peek().line().indent() >= line.indent()) {
+                    parents.pop();
+                }
+                parents.peek().children().add(node);
+                parents.push(node);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + CATALOG, e);
+        }
+
+        List<MobType> types = new ArrayList<>();
+        Map<String, MobType> byName = new HashMap<>();
+        List<List<ChanceMove>> chanceMoves = new ArrayList<>();
+        for (Node entry : entries) {
+            MobType type = compileType(types.size(), entry, items);
+            if (byName.put(type.getName(), type) != null) {
+                throw new IllegalStateException(CATALOG + " has mob " + type.getName() + " twice");
+            }
+            types.add(type);
+            chanceMoves.add(chanceMoves(entry));
+        }
+        return new Catalog(types.toArray(MobType[]::new), Map.copyOf(byName), List.copyOf(chanceMoves));
+    }
+
+    private static MobType compileType(int id, Node entry, Items.Catalog items) {
+        Line line = entry.line();
+        if (line.size() < 2) throw error(line, "mob needs a name");
+
+        int health = 0;
+        int armor = 0;
+        List<Item> drops = new ArrayList<>();
+
+        for (int i = 2; i < line.size(); i++) {
+            switch (line.word(i)) {
+                case "health" -> health = (int) line.number(++i);
+                case "armor" -> armor = (int) line.number(++i);
+                case "drops" -> {
+                    // Drops run to the end of the line
+                    while (i + 1 < line.size()) {
+                        String name = line.word(++i);
+                        drops.add(items.fromName(name).orElseThrow(() -> error(line, "no item " + name)));
+                    }
+                }
+                default -> throw error(line, "unknown mob property " + line.word(i));
+            }
+        }
+
+        if (health <= 0) throw error(line, "mob needs a positive health");
+
+        // Every top-level node runs on every mob tick
+        Behaviour behaviour = entry.children().stream()
+                .map(MobTypes::compile)
+                .reduce(Behaviour::andThen)
+                .orElse(Behaviour.SUCCEED);
+
+        return new MobType(id, line.word(1), health, armor, drops, behaviour);
+    }
+
+    /**
+     * Compiles a node and its children into a single behaviour.
+     */
+    private static Behaviour compile(Node node) {
+        Line line = node.line();
+        String kind = line.word(0);
+
+        boolean composite = kind.equals("sequence") || kind.equals("selector");
+        if (!composite && !node.children().isEmpty()) {
+            throw error(line, kind + " can't have children");
+        }
+
+        return switch (kind) {
+            case "sequence" -> fold(node, Behaviour::and);
+            case "selector" -> fold(node, Behaviour::or);
+            case "chance" -> {
+                double probability = line.only(1).number(1);
+                yield mob -> mob.roll(probability);
+            }
+            case "hurt" -> {
+                double fraction = line.only(1).number(1);
+                yield mob -> mob.isHurt(fraction);
+            }
+            case "player_here" -> {
+                line.only(0);
+                yield Mob::isPlayerHere;
+            }
+            case "player_nearby" -> {
+                line.only(0);
+                yield Mob::isPlayerNearby;
+            }
+            case "wander" -> {
+                line.only(0);
+                yield Mob::wander;
+            }
+            case "chase" -> {
+                line.only(0);
+                yield Mob::chase;
+            }
+            case "flee" -> {
+                line.only(0);
+                yield Mob::flee;
+            }
+            case "teleport" -> {
+                TeleportSampler destinations = destinations(line);
+                yield mob -> mob.teleport(destinations);
+            }
+            case "sound" -> {
+                if (line.size() < 2 || line.size() > 3) throw error(line, "expected sound \"<here>\" [\"<nearby>\"]");
+                String here = line.word(1);
+                String nearby = line.size() == 3 ? line.word(2) : null;
+                yield mob -> mob.makeSound(here, nearby);
+            }
+            default -> throw error(line, "unknown behaviour " + kind);
+        };
+    }
+
+    /**
+     * Picks the chance moves out of a mob's compiled tree, see {@link #chanceMoves(MobType)}.
+     */
+    private static List<ChanceMove> chanceMoves(Node entry) {
+        List<ChanceMove> moves = new ArrayList<>();
+
+        for (Node node : entry.children()) {
+            List<Node> steps = node.children();
+            if (!node.line().word(0).equals("sequence") || steps.size() != 2
+                    || !steps.get(0).line().word(0).equals("chance")) {
+                continue;
+            }
+
+            double chance = steps.get(0).line().number(1);
+            Line move = steps.get(1).line();
+            switch (move.word(0)) {
+                case "teleport" -> moves.add(new ChanceMove(chance, destinations(move)));
+                case "wander" -> moves.add(new ChanceMove(chance, null));
+                default -> {
+                    // Not a move a model can make without the live world
+                }
+            }
+        }
+        return List.copyOf(moves);
+    }
+
+    private static Behaviour fold(Node node, BinaryOperator<Behaviour> combine) {
+        return node.children().stream()
+                .map(MobTypes::compile)
+                .reduce(combine)
+                .orElseThrow(() -> error(node.line(), node.line().word(0) + " needs children"));
+    }
+
+    private static TeleportSampler destinations(Line line) {
+        TeleportSampler destinations = TeleportSampler.UNIFORM;
+
+        for (int i = 1; i < line.size(); i++) {
+            String[] weight = line.word(i).split("=");
+            if (weight.length != 2) throw error(line, "expected <room>=<weight>, got " + line.word(i));
+
+            try {
+                destinations = destinations.withWeight(Room.valueOf(weight[0]), Double.parseDouble(weight[1]));
+            } catch (IllegalArgumentException e) {
+                throw error(line, e.getMessage());
+            }
+        }
+        return destinations;
+    }
+
+    private static IllegalStateException error(Line line, String message) {
+        return new IllegalStateException(CATALOG + ":" + line.number() + ": " + message);
+    }
+
+    /**
+     * A line of the catalog, split into words.
+     *
+     * @param number The line number, for errors.
+     * @param indent How far the line is indented.
+     * @param words  The words, with quoted strings as single words without their quotes.
+     */
+    private record Line(int number, int indent, List<String> words) {
+        static Line of(int number, String text) {
+            int indent = 0;
+            while (Character.isWhitespace(text.charAt(indent))) {
+                indent++;
+            }
+
+            List<String> words = new ArrayList<>();
+            Matcher matcher = TOKEN.matcher(text);
+            while (matcher.find()) {
+                words.add(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+            }
+            return new Line(number, indent, words);
+        }
+
+        int size() {
+            return words.size();
+        }
+
+        String word(int index) {
+            if (index >= words.size()) throw error(this, "missing value after " + words.get(index - 1));
+            return words.get(index);
+        }
+
+        double number(int index) {
+            try {
+                return Double.parseDouble(word(index));
+            } catch (NumberFormatException e) {
+                throw error(this, "not a number: " + words.get(index));
+            }
+        }
+
+        /**
+         * Checks the line has exactly the given number of arguments after its first word.
+         */
+        Line only(int arguments) {
+            if (words.size() != arguments + 1) {
+                throw error(this, words.get(0) + " takes " + arguments + " argument" + (arguments == 1 ? "" : "s"));
+            }
+            return this;
+        }
+    }
+
+    /**
+     * A line of the catalog with the lines indented below it.
+     */
+    private record Node(Line line, List<Node> children) {
+        Node(Line line) {
+            this(line, new ArrayList<>());
+        }
+    }
+
+    /**
+     * A move a mob makes by chance alone.
+     *
+     * @param chance       The probability of the move on every mob tick.
+     * @param destinations The rooms it teleports to, or null if it wanders through a random exit.
+     */
+    record ChanceMove(double chance, TeleportSampler destinations) {
+    }
+
+    /**
+     * One version of the catalog, never changed once loaded.
+     *
+     * @param byId        The mob types, indexed by id.
+     * @param byName      The mob types by name.
+     * @param chanceMoves The chance moves of every mob type, indexed by id.
+     */
+    record Catalog(MobType[] byId, Map<String, MobType> byName, List<List<ChanceMove>> chanceMoves) {
+        Optional<MobType> fromName(String name) {
+            return Optional.ofNullable(byName.get(name));
+        }
+
+        /**
+         * Checks this catalog can replace another without changing what the types of the mobs in the world mean.
+         *
+         * @param previous The catalog in use.
+         * @throws IllegalStateException if a mob type was removed or moved to another id.
+         */
+        void checkReplaces(Catalog previous) {
+            for (MobType type : previous.byId()) {
+                if (type.getId() >= byId.length || !byId[type.getId()].getName().equals(type.getName())) {
+                    throw new IllegalStateException(CATALOG + " no longer has mob " + type.getName() + " as entry "
+                            + (type.getId() + 1) + ", new mobs go at the end");
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
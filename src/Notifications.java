@@ -0,0 +1,161 @@
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Delivers what mobs do to the players who can perceive it, instead of printing it to everyone.
+ * <p>A notice happens in a room. Players in that room get its full text, players in the rooms next to it get its
+ * muffled text, if it has one, and nobody else hears anything. Notices are collected during a tick and delivered by
+ * {@link #flush()}. Identical lines reaching the same player in one tick are coalesced into one, e.g.
+ * "A zombie growls nearby (x3)".</p>
+ * <p>Players are indexed by room as they move, so delivering a notice only visits the players in its room and the
+ * rooms next to it. The cost grows with the number of observers, not with players times mobs, and a notice nobody
+ * can perceive is dropped straight away.</p>
+ */
+public class Notifications implements WorldListener {
+    public static final Notifications INSTANCE = new Notifications();
+
+    // Rooms whose players hear a room's muffled notices, linked by an exit either way
+    private final Map<Room, Set<Room>> nearby = new EnumMap<>(Room.class);
+    private final Map<Room, Set<Entity>> observers = new EnumMap<>(Room.class);
+    private final Map<Entity, Consumer<String>> sinks = new ConcurrentHashMap<>();
+
+    // Guarded by this, counting identical notices
+    private Map<Notice, Integer> pending = new LinkedHashMap<>();
+
+    private Notifications() {
+        for (Room room : Room.values()) {
+            nearby.put(room, EnumSet.noneOf(Room.class));
+            observers.put(room, ConcurrentHashMap.newKeySet());
+        }
+
+        for (Room room : Room.values()) {
+            for (Direction direction : Direction.values()) {
+                Room exit = room.getExit(direction);
+                if (exit != null && exit != room) {
+                    nearby.get(room).add(exit);
+                    nearby.get(exit).add(room);
+                }
+            }
+        }
+
+        WorldEvents.INSTANCE.addListener(this);
+    }
+
+    /**
+     * Starts delivering notices the player can perceive.
+     *
+     * @param player The player.
+     * @param sink   Receives the player's notices, one line at a time.
+     */
+    public void subscribe(Player player, Consumer<String> sink) {
+        sinks.put(player, sink);
+
+        Room room = player.getLocation();
+        if (room != null) observers.get(room).add(player);
+    }
+
+    /**
+     * Stops delivering notices to the player.
+     *
+     * @param player The player.
+     */
+    public void unsubscribe(Player player) {
+        if (sinks.remove(player) == null) return;
+
+        observers.values().forEach(room -> room.remove(player));
+    }
+
+    /**
+     * Reports something happening in a room, to be delivered at the end of the tick.
+     *
+     * @param room   The room it happens in.
+     * @param here   What players in the room perceive.
+     * @param nearby What players in the rooms next to it perceive, or null if they don't notice.
+     */
+    public void post(Room room, String here, String nearby) {
+        if (!isObserved(room, nearby != null)) return;
+
+        synchronized (this) {
+            pending.merge(new Notice(room, here, nearby), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Delivers the notices posted since the last flush to the players who perceive them.
+     */
+    public void flush() {
+        Map<Notice, Integer> notices;
+        synchronized (this) {
+            if (pending.isEmpty()) return;
+
+            notices = pending;
+            pending = new LinkedHashMap<>();
+        }
+
+        // What every observer perceives this tick, and how often
+        Map<Entity, Map<String, Integer>> heard = new LinkedHashMap<>();
+        notices.forEach((notice, count) -> {
+            hear(heard, observers.get(notice.room()), notice.here(), count);
+
+            if (notice.nearby() != null) {
+                nearby.get(notice.room()).forEach(room -> hear(heard, observers.get(room), notice.nearby(), count));
+            }
+        });
+
+        heard.forEach((observer, lines) -> {
+            Consumer<String> sink = sinks.get(observer);
+            if (sink == null) return;
+
+            lines.forEach((line, count) -> sink.accept(count == 1 ? line : line + " (x" + count + ")"));
+        });
+    }
+
+    @Override
+    public void entitySpawned(Entity entity, Room room) {
+        if (sinks.containsKey(entity)) observers.get(room).add(entity);
+    }
+
+    @Override
+    public void entityMoved(Entity entity, Room from, Room to) {
+        if (!sinks.containsKey(entity)) return;
+
+        observers.get(from).remove(entity);
+        observers.get(to).add(entity);
+    }
+
+    @Override
+    public void entityRemoved(Entity entity, Room room) {
+        observers.get(room).remove(entity);
+    }
+
+    private boolean isObserved(Room room, boolean audibleNearby) {
+        if (!observers.get(room).isEmpty()) return true;
+        if (!audibleNearby) return false;
+
+        for (Room neighbour : nearby.get(room)) {
+            if (!observers.get(neighbour).isEmpty()) return true;
+        }
+        return false;
+    }
+
+    private static void hear(Map<Entity, Map<String, Integer>> heard, Set<Entity> observers, String line, int count) {
+        for (Entity observer : observers) {
+            heard.computeIfAbsent(observer, o -> new LinkedHashMap<>()).merge(line, count, Integer::sum);
+        }
+    }
+
+    /**
+     * Something happening in a room, identical notices in the same tick are counted rather than repeated.
+     *
+     * @param room   The room it happens in.
+     * @param here   What players in the room perceive.
+     * @param nearby What players in the rooms next to it perceive, or null.
+     */
+    private record Notice(Room room, String here, String nearby) {
+    }
+}
\ No newline at end of file
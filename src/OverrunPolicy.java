@@ -0,0 +1,15 @@
+/**
+ * What a {@link TickLoop} does about ticks it missed because earlier ticks ran too long.
+ */
+public enum OverrunPolicy {
+    /**
+     * Run the missed ticks back to back until the loop is on schedule again, so the world keeps its pace. A loop
+     * that falls too far behind skips anyway, rather than never catching up.
+     */
+    CATCH_UP,
+
+    /**
+     * Drop the missed ticks and carry on from now, so the world slows down instead of rushing.
+     */
+    SKIP
+}
\ No newline at end of file
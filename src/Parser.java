@@ -1,3 +1,5 @@
+import java.io.InputStream;
+import java.io.PrintStream;
 import java.util.Scanner;
 
 public class Parser {
@@ -8,16 +10,32 @@ public class Parser {
      * Create a parser to read from the terminal window.
      */
     public Parser() {
+        this(System.in);
+    }
+
+    /**
+     * Create a parser to read from the given input, e.g. a client connection.
+     *
+     * @param in The source of command input.
+     */
+    public Parser(InputStream in) {
         commands = new CommandWords();
-        reader = new Scanner(System.in);
+        reader = new Scanner(in);
     }
 
     /**
-     * @return The next command from the user.
+     * @return true if there is another line of input to read.
      */
-    public Command getCommand() {
-        System.out.print("> "); // Prompt
+    public boolean hasNextCommand() {
+        return reader.hasNextLine();
+    }
 
+    /**
+     * Reads the next command. Prompting is up to the caller, who knows where the output goes.
+     *
+     * @return The next command from the input.
+     */
+    public Command nextCommand() {
         String inputLine = reader.nextLine();
 
         try (Scanner tokenizer = new Scanner(inputLine)) {
@@ -31,8 +49,10 @@ public class Parser {
 
     /**
      * Print out a list of valid command words.
+     *
+     * @param out The stream to print to.
      */
-    public void showCommands() {
-        commands.showAll();
+    public void showCommands(PrintStream out) {
+        commands.showAll(out);
     }
 }
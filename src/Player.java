@@ -1,8 +1,10 @@
-import java.util.Optional;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
 
 /**
  * Represents a Player entity in the game, which is a type of {@link Entity}.
- * A player has the ability to kill mobs if they have an Iron Sword in their inventory.
+ * A player fights mobs with the best weapon in their inventory, see {@link Combat}.
  */
 public class Player extends Entity {
 
@@ -19,26 +21,31 @@ public class Player extends Entity {
     }
 
     /**
-     * Attempts to kill the specified mob. The player can only kill the mob if they possess an Iron Sword
-     * in their inventory.
+     * Drops and picks up items in one go, so the player carries the most valuable items there are between their
+     * inventory and the room's floor. See {@link InventoryOptimizer}.
      *
-     * @param mob The mob to be killed.
-     * @return A message indicating the result of the kill attempt:
-     * - Success message if the mob is killed.
-     * - Failure message if the player doesn't have an Iron Sword.
+     * @param value The value model to pack by.
+     * @return a message saying what was dropped and picked up.
      */
-    public String kill(Mob mob) {
-        // Check if the player has an Iron Sword
-        Optional<Item> ironSword = this.inventory.getAllItems().stream()
-                .filter(item -> item == Item.IRON_SWORD)
-                .findFirst();
+    public String optimizeInventory(ToDoubleFunction<Item> value) {
+        Inventory roomItems = getLocation().items;
+        InventoryOptimizer.Plan plan = InventoryOptimizer.plan(
+                inventory.getAllItems(), roomItems.getAllItems(), inventory.getCapacity(), value);
+        if (plan.isEmpty()) {
+            return "Your inventory is already packed best.";
+        }
 
-        // If not, fail to kill
-        if (ironSword.isEmpty()) {
-            return "You need an Iron Sword to kill mobs!";
+        if (!Inventory.exchange(inventory, roomItems, plan.drop(), plan.take())) {
+            // Someone else took or dropped something meanwhile
+            return "The room changed, try again.";
         }
 
-        // Else kill mob
-        return mob.die();
+        return "Dropped: " + names(plan.drop()) + ". Picked up: " + names(plan.take()) + ".";
+    }
+
+    private static String names(List<Item> items) {
+        return items.isEmpty()
+                ? "nothing"
+                : items.stream().map(Item::getName).collect(Collectors.joining(", "));
     }
 }
\ No newline at end of file
@@ -13,8 +13,8 @@ public record Recipe(Item ingredient1, Item ingredient2, Item result) {
      * @return {@code true} if the provided ingredients match the recipe, {@code false} otherwise.
      */
     public boolean matches(Item item1, Item item2) {
-        return (item1 == ingredient1 && item2 == ingredient2) ||
-                (item1 == ingredient2 && item2 == ingredient1);
+        return (item1.getId() == ingredient1.getId() && item2.getId() == ingredient2.getId()) ||
+                (item1.getId() == ingredient2.getId() && item2.getId() == ingredient1.getId());
     }
 }
 
@@ -1,4 +1,6 @@
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -11,9 +13,25 @@ public class Recipes {
      * A static list of predefined recipes.
      */
     private static final List<Recipe> RECIPES = List.of(
-            new Recipe(Item.BLAZE_POWDER, Item.ENDER_PEARL, Item.EYE_OF_ENDER)
+            new Recipe(Items.BLAZE_POWDER, Items.ENDER_PEARL, Items.EYE_OF_ENDER)
     );
 
+    /**
+     * The recipes by the ids of their ingredients, in either order.
+     */
+    private static final Map<Long, Recipe> BY_INGREDIENTS = new HashMap<>();
+
+    static {
+        RECIPES.forEach(recipe -> BY_INGREDIENTS.put(key(recipe.ingredient1(), recipe.ingredient2()), recipe));
+    }
+
+    /**
+     * @return All predefined recipes.
+     */
+    public static List<Recipe> all() {
+        return RECIPES;
+    }
+
     /**
      * Finds the recipe that matches the given ingredients.
      *
@@ -22,8 +40,15 @@ public class Recipes {
      * @return An {@link Optional} containing the matching {@link Recipe} if found, or an empty {@link Optional} if no match is found.
      */
     public static Optional<Recipe> findRecipe(Item item1, Item item2) {
-        return RECIPES.stream()
-                .filter(recipe -> recipe.matches(item1, item2))
-                .findFirst();
+        return Optional.ofNullable(BY_INGREDIENTS.get(key(item1, item2)));
+    }
+
+    /**
+     * Packs the ids of two ingredients into one key, the same for either order.
+     */
+    private static long key(Item item1, Item item2) {
+        int low = Math.min(item1.getId(), item2.getId());
+        int high = Math.max(item1.getId(), item2.getId());
+        return ((long) low << 32) | high;
     }
 }
\ No newline at end of file
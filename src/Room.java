@@ -6,6 +6,8 @@ import java.util.stream.Collectors;
  * that may be present.
  * <p>Each room is connected to other rooms through exits, and the player can
  * travel between them.</p>
+ * <p>The rooms are the constants of this enum, with final inventories, so they stay in memory for the whole game
+ * and are never paged out to disk.</p>
  */
 public enum Room {
     PLAINS("a grassy starting area connecting all major locations"),
@@ -45,7 +47,8 @@ public enum Room {
     Room(String description) {
         this.description = description;
         this.exits = new HashMap<>();
-        this.items = new Inventory(MAX_ITEM_CAPACITY, new ArrayList<>());
+        this.items = new Inventory(MAX_ITEM_CAPACITY);
+        this.items.setInWorld(true);
     }
 
     /**
@@ -58,6 +61,16 @@ public enum Room {
         exits.put(direction, neighbor);
     }
 
+    /**
+     * Returns the room an exit leads to.
+     *
+     * @param direction The direction of the exit.
+     * @return The neighboring room, or null if there is no exit in that direction.
+     */
+    public Room getExit(Direction direction) {
+        return exits.get(direction);
+    }
+
     /**
      * Returns a set of all directions that lead out of this room.
      *
@@ -0,0 +1,109 @@
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A condition on the world and what to do when it is met, such as a win condition, a quest step or an achievement.
+ * <p>A rule names the triggers and rooms it depends on, and the {@link RuleEngine} only checks its condition when one
+ * of those triggers happens in one of those rooms.</p>
+ * <p>A condition only reads the world, since a one-off rule's condition may hold on two threads while only one of them
+ * gets to act. Anything a rule keeps count of is counted by its action.</p>
+ */
+public final class Rule {
+    private final String name;
+    private final Set<Trigger> triggers;
+    private final Set<Room> rooms;
+    private final boolean once;
+    private final Predicate<Event> condition;
+    private final Consumer<Event> action;
+
+    private Rule(String name, Set<Trigger> triggers, Set<Room> rooms, boolean once,
+                 Predicate<Event> condition, Consumer<Event> action) {
+        if (triggers.isEmpty()) {
+            throw new IllegalArgumentException("Rule " + name + " needs at least one trigger");
+        }
+
+        this.name = name;
+        this.triggers = EnumSet.copyOf(triggers);
+        this.rooms = rooms.isEmpty() ? EnumSet.noneOf(Room.class) : EnumSet.copyOf(rooms);
+        this.once = once;
+        this.condition = condition;
+        this.action = action;
+    }
+
+    /**
+     * Creates a rule that acts every time its condition holds after one of its triggers.
+     *
+     * @param name      The name of the rule.
+     * @param triggers  The changes that may make the condition hold.
+     * @param rooms     The rooms the changes must happen in, or none for any room.
+     * @param condition Checked after every matching change.
+     * @param action    Run whenever the condition holds.
+     * @return The rule.
+     */
+    public static Rule every(String name, Set<Trigger> triggers, Set<Room> rooms,
+                             Predicate<Event> condition, Consumer<Event> action) {
+        return new Rule(name, triggers, rooms, false, condition, action);
+    }
+
+    /**
+     * Creates a rule that acts the first time its condition holds and is then removed from the engine.
+     *
+     * @param name      The name of the rule.
+     * @param triggers  The changes that may make the condition hold.
+     * @param rooms     The rooms the changes must happen in, or none for any room.
+     * @param condition Checked after every matching change.
+     * @param action    Run once, when the condition first holds.
+     * @return The rule.
+     */
+    public static Rule once(String name, Set<Trigger> triggers, Set<Room> rooms,
+                            Predicate<Event> condition, Consumer<Event> action) {
+        return new Rule(name, triggers, rooms, true, condition, action);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Set<Trigger> getTriggers() {
+        return triggers;
+    }
+
+    /**
+     * @return The rooms the rule depends on, empty if it depends on all rooms.
+     */
+    public Set<Room> getRooms() {
+        return rooms;
+    }
+
+    public boolean isOnce() {
+        return once;
+    }
+
+    boolean test(Event event) {
+        return condition.test(event);
+    }
+
+    void apply(Event event) {
+        action.accept(event);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * A change to the world, as seen by a rule.
+     *
+     * @param trigger The kind of change.
+     * @param room    The room the change happened in.
+     * @param entity  The entity that changed: the one that moved, whose inventory changed, or the killer. Null for
+     *                items on a room's floor.
+     * @param target  The entity killed, otherwise null.
+     * @param item    The item added or removed, otherwise null.
+     */
+    public record Event(Trigger trigger, Room room, Entity entity, Entity target, Item item) {
+    }
+}
@@ -0,0 +1,153 @@
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Checks {@link Rule}s as the world changes, instead of polling them every tick.
+ * <p>Rules are indexed by trigger and room. A change only looks up the rules registered for its trigger in its room
+ * and for its trigger in any room, so rules that don't depend on a change cost nothing, however many there are.
+ * Changes nobody has a rule for return before creating an event.</p>
+ * <p>Changes may be reported from several rooms' threads at once. Conditions and actions run on the thread reporting
+ * the change, so they must be thread safe.</p>
+ */
+public class RuleEngine implements WorldListener {
+    public static final RuleEngine INSTANCE = new RuleEngine();
+
+    private final Map<Trigger, Map<Room, List<Rule>>> byRoom = new EnumMap<>(Trigger.class);
+    private final Map<Trigger, List<Rule>> anyRoom = new EnumMap<>(Trigger.class);
+    private final Set<Rule> active = ConcurrentHashMap.newKeySet();
+
+    // Whose items changed, by inventory id
+    private final Map<Long, Room> roomInventories = new HashMap<>();
+    private final Map<Long, Entity> entityInventories = new ConcurrentHashMap<>();
+
+    private RuleEngine() {
+        for (Trigger trigger : Trigger.values()) {
+            Map<Room, List<Rule>> rooms = new EnumMap<>(Room.class);
+            for (Room room : Room.values()) {
+                rooms.put(room, new CopyOnWriteArrayList<>());
+            }
+            byRoom.put(trigger, rooms);
+            anyRoom.put(trigger, new CopyOnWriteArrayList<>());
+        }
+
+        for (Room room : Room.values()) {
+            roomInventories.put(room.items.getId(), room);
+        }
+        LocationManager.INSTANCE.getEntities().forEach(entity -> entityInventories.put(entity.inventory.getId(), entity));
+
+        WorldEvents.INSTANCE.addListener(this);
+    }
+
+    /**
+     * Starts checking a rule.
+     *
+     * @param rule The rule to add.
+     */
+    public void add(Rule rule) {
+        if (!active.add(rule)) return;
+
+        for (Trigger trigger : rule.getTriggers()) {
+            if (rule.getRooms().isEmpty()) {
+                anyRoom.get(trigger).add(rule);
+            } else {
+                rule.getRooms().forEach(room -> byRoom.get(trigger).get(room).add(rule));
+            }
+        }
+    }
+
+    /**
+     * Stops checking a rule.
+     *
+     * @param rule The rule to remove.
+     * @return {@code true} if the rule was being checked, otherwise {@code false}.
+     */
+    public boolean remove(Rule rule) {
+        if (!active.remove(rule)) return false;
+
+        for (Trigger trigger : rule.getTriggers()) {
+            anyRoom.get(trigger).remove(rule);
+            byRoom.get(trigger).values().forEach(rules -> rules.remove(rule));
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of rules being checked.
+     */
+    public int size() {
+        return active.size();
+    }
+
+    @Override
+    public void itemAdded(Inventory inventory, Item item) {
+        itemChanged(Trigger.ITEM_ADDED, inventory, item);
+    }
+
+    @Override
+    public void itemRemoved(Inventory inventory, Item item) {
+        itemChanged(Trigger.ITEM_REMOVED, inventory, item);
+    }
+
+    @Override
+    public void entitySpawned(Entity entity, Room room) {
+        entityInventories.put(entity.inventory.getId(), entity);
+        fire(Trigger.ENTITY_ENTERED, room, entity, null, null);
+    }
+
+    @Override
+    public void entityMoved(Entity entity, Room from, Room to) {
+        fire(Trigger.ENTITY_LEFT, from, entity, null, null);
+        fire(Trigger.ENTITY_ENTERED, to, entity, null, null);
+    }
+
+    @Override
+    public void entityRemoved(Entity entity, Room room) {
+        entityInventories.remove(entity.inventory.getId());
+    }
+
+    @Override
+    public void entityKilled(Entity killer, Entity victim, Room room) {
+        fire(Trigger.ENTITY_KILLED, room, killer, victim, null);
+    }
+
+    private void itemChanged(Trigger trigger, Inventory inventory, Item item) {
+        Room room = roomInventories.get(inventory.getId());
+        if (room != null) {
+            fire(trigger, room, null, null, item);
+            return;
+        }
+
+        Entity owner = entityInventories.get(inventory.getId());
+        if (owner != null && owner.getLocation() != null) {
+            fire(trigger, owner.getLocation(), owner, null, item);
+        }
+    }
+
+    private void fire(Trigger trigger, Room room, Entity entity, Entity target, Item item) {
+        List<Rule> inRoom = byRoom.get(trigger).get(room);
+        List<Rule> anywhere = anyRoom.get(trigger);
+
+        // Nothing depends on this change
+        if (inRoom.isEmpty() && anywhere.isEmpty()) return;
+
+        Rule.Event event = new Rule.Event(trigger, room, entity, target, item);
+        check(inRoom, event);
+        check(anywhere, event);
+    }
+
+    private void check(List<Rule> rules, Rule.Event event) {
+        for (Rule rule : rules) {
+            if (!rule.test(event)) continue;
+
+            // Only the thread that removes a one-off rule gets to apply it
+            if (rule.isOnce() && !remove(rule)) continue;
+
+            rule.apply(event);
+        }
+    }
+}
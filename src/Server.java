@@ -0,0 +1,640 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Multiplayer front-end for Mini Minecraft.
+ * <p>Clients connect over a local socket and speak the same line protocol as the terminal: one command per line,
+ * answered by the game output followed by a {@link #PROMPT} line. Every connection is served by its own virtual
+ * thread and bound to its own {@link Player} in a shared world.</p>
+ * <p>The rooms are partitioned into shards, set with {@code -Dminecraft.shards=<n>}, each ticked by its own thread on
+ * its own {@link TickLoop}. A connection belongs to the shard of its player's room. Connection threads only queue
+ * commands on their connection and tell its shard through the {@link Transport}. Every tick a shard sorts the
+ * connections with work into a mailbox per room, and runs the mailboxes in parallel: commands for one room run in
+ * order, while rooms proceed independently as they share no locks. When a command takes a player into another room,
+ * the rest of its commands wait for the next tick and run in that room's mailbox, on the shard owning the room, so a
+ * player never runs commands alongside the mailbox of a room it has entered.</p>
+ * <p>Each shard also owns the mobs in its rooms and the spawners there. They act every {@link Game#MOB_TICK_INTERVAL}
+ * of the shard's ticks, whether or not anyone sent a command, and a mob that walks into another shard's room is
+ * handed off to that shard through a transport of its own. Fights are resolved at the end of the tick by the shard
+ * owning the room, with a {@link Combat} of its own. An attack is answered, prompt included, once its outcome is
+ * known, and the connection's later commands wait for it, so every command still gets its own reply in order.</p>
+ * <p>What mobs did is delivered to the players who can perceive it through {@link Notifications}, which only the
+ * first shard flushes, so notices from other shards' rooms may arrive a tick late. At the end of its tick each shard
+ * hands every connection it owns the output produced since its last tick in a single write. Locations, items and
+ * inventories stay in the shared, thread-safe registries rather than being copied per shard, and the world hash is
+ * taken by the first shard while the others may be mid tick.</p>
+ * <p>Spectators connect to a port of their own, set with {@code -Dminecraft.spectators=<port>}, and send nothing. They
+ * watch the whole world through {@link WorldDeltas}: after every tick in which the world changed each one is sent a
+ * frame, prefixed by its length as a four byte int. A spectator that falls {@link #MAX_QUEUED_FRAMES} frames behind is dropped.</p>
+ * <p>Work that needs the whole world to hold still, such as a content reload, the autosave's copy or the spectators'
+ * frames, runs between ticks: every shard ticks holding the world's read lock, and the first shard takes the write
+ * lock before its tick when there is such work, which waits for all shards to finish their tick and keeps them from
+ * starting the next.</p>
+ */
+public class Server {
+    public static final int DEFAULT_PORT = 25565;
+    static final String PROMPT = ">";
+    static final String SHARDS_PROPERTY = "minecraft.shards";
+    static final String SPECTATORS_PROPERTY = "minecraft.spectators";
+    // Frames a spectator may have waiting to be written before it is dropped
+    static final int MAX_QUEUED_FRAMES = 100;
+    // Room for bursts of clients connecting at once
+    private static final int BACKLOG = 4096;
+    // Sent to a connection's writer to close the socket once all output before it is written
+    private static final byte[] CLOSE = new byte[0];
+
+    private final ServerSocket serverSocket;
+    // Both null unless spectators are enabled
+    private final ServerSocket spectatorSocket;
+    private final WorldDeltas deltas;
+    private final Map<WorldDeltas.Observer, Spectator> spectators = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger playerCount = new AtomicInteger();
+    // The shard owning each room, by ordinal
+    private final int[] shardOf;
+    private final Shard[] shards;
+    private final Transport<Connection> transport;
+    // Mobs walking into another shard's room
+    private final Transport<Mob> mobTransport;
+    // Held for reading by every shard's tick, and for writing by work that needs all shards between ticks
+    private final ReadWriteLock worldLock = new ReentrantReadWriteLock();
+    private volatile long tickHash;
+
+    /**
+     * Creates a server listening on the loopback interface and creates its world, with as many shards as the
+     * {@code minecraft.shards} property asks for, one by default, and spectators if the {@code minecraft.spectators}
+     * property gives their port.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException if a socket cannot be opened.
+     */
+    public Server(int port) throws IOException {
+        this(port, Integer.getInteger(SHARDS_PROPERTY, 1), Integer.getInteger(SPECTATORS_PROPERTY));
+    }
+
+    /**
+     * Creates a server listening on the loopback interface and creates its world, without spectators.
+     *
+     * @param port       The port to listen on, or 0 for any free port.
+     * @param shardCount The number of shards to partition the rooms into, at most one per room.
+     * @throws IOException if the socket cannot be opened.
+     */
+    public Server(int port, int shardCount) throws IOException {
+        this(port, shardCount, null);
+    }
+
+    /**
+     * Creates a server listening on the loopback interface and creates its world.
+     *
+     * @param port          The port to listen on, or 0 for any free port.
+     * @param shardCount    The number of shards to partition the rooms into, at most one per room.
+     * @param spectatorPort The port spectators connect to, 0 for any free port, or null for no spectators.
+     * @throws IOException if a socket cannot be opened.
+     */
+    public Server(int port, int shardCount, Integer spectatorPort) throws IOException {
+        if (shardCount < 1 || shardCount > Room.values().length) {
+            throw new IllegalArgumentException("Shards must be between 1 and " + Room.values().length + ": "
+                    + shardCount);
+        }
+
+        this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        this.spectatorSocket = spectatorPort != null
+                ? new ServerSocket(spectatorPort, BACKLOG, InetAddress.getLoopbackAddress())
+                : null;
+        List<Mob> mobs = Game.createWorld();
+        this.shardOf = partition(shardCount);
+        this.transport = new InProcessTransport<>(shardCount);
+        this.mobTransport = new InProcessTransport<>(shardCount);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+        mobs.forEach(mob -> shards[shardOf[mob.getLocation().ordinal()]].mobs.add(mob));
+        // Only record changes once the world is created, a spectator's first frame is a keyframe anyway
+        this.deltas = spectatorSocket != null ? WorldDeltas.start() : null;
+    }
+
+    /**
+     * Splits the rooms into shards of neighbouring rooms, so few moves cross a shard boundary.
+     *
+     * @param shardCount The number of shards.
+     * @return The shard of every room, by ordinal.
+     */
+    private static int[] partition(int shardCount) {
+        // Rooms in breadth-first order from the spawn room keep neighbours close together
+        List<Room> order = new ArrayList<>(List.of(Game.SPAWN_ROOM));
+        for (int i = 0; i < order.size(); i++) {
+            Room room = order.get(i);
+            room.getExits().stream()
+                    .map(room::getExit)
+                    .filter(exit -> !order.contains(exit))
+                    .forEach(order::add);
+        }
+        // Rooms that can't be reached still need a shard
+        Arrays.stream(Room.values()).filter(room -> !order.contains(room)).forEach(order::add);
+
+        int[] shardOf = new int[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            shardOf[order.get(i).ordinal()] = i * shardCount / order.size();
+        }
+        return shardOf;
+    }
+
+    /**
+     * @return The port the server is listening on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return The port spectators connect to, or empty if spectators are not enabled.
+     */
+    public Optional<Integer> getSpectatorPort() {
+        return Optional.ofNullable(spectatorSocket).map(ServerSocket::getLocalPort);
+    }
+
+    /**
+     * Accepts connections in the background and runs the shards until the calling thread is interrupted. The first
+     * shard runs on the calling thread.
+     */
+    public void run() {
+        Thread.ofVirtual().name("accept").start(this::acceptConnections);
+        if (spectatorSocket != null) {
+            Thread.ofVirtual().name("accept-spectators").start(this::acceptSpectators);
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 1; i < shards.length; i++) {
+            threads.add(Thread.ofPlatform().name("shard-" + i).start(shards[i].tickLoop::run));
+        }
+
+        System.out.println("Mini Minecraft server listening on port " + getPort() + " with " + shards.length
+                + " shard" + (shards.length == 1 ? "" : "s"));
+        getSpectatorPort().ifPresent(spectatorPort ->
+                System.out.println("Spectators may watch on port " + spectatorPort));
+
+        shards[0].tickLoop.run();
+
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                // Already stopping
+            }
+        }
+
+        close();
+        if (deltas != null) deltas.close();
+        Autosave.get().ifPresent(Autosave::close);
+        for (Shard shard : shards) {
+            System.out.println("Shard " + shard.index + " stopped: " + shard.tickLoop.getLagReport());
+        }
+        AllocationTracker.get().ifPresent(allocations -> System.out.print(allocations.report()));
+    }
+
+    /**
+     * @return How each shard's tick loop has kept up so far, by shard.
+     */
+    public List<TickLoop.LagReport> getLagReports() {
+        return Arrays.stream(shards).map(shard -> shard.tickLoop.getLagReport()).toList();
+    }
+
+    /**
+     * @return The {@link WorldHash} at the end of the first shard's last tick, for comparing against other runs.
+     * With more than one shard the others may be mid tick when it is taken, so it is only a hash of one tick's world
+     * with a single shard.
+     */
+    public long getTickHash() {
+        return tickHash;
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread.ofVirtual().start(() -> new Connection(socket).serve());
+            } catch (IOException e) {
+                // Server socket closed, stop accepting
+                return;
+            }
+        }
+    }
+
+    private void acceptSpectators() {
+        while (!spectatorSocket.isClosed()) {
+            try {
+                Socket socket = spectatorSocket.accept();
+                Spectator spectator = new Spectator(socket);
+                Thread.ofVirtual().start(spectator::serve);
+            } catch (IOException e) {
+                // Spectator socket closed, stop accepting
+                return;
+            }
+        }
+    }
+
+    private void close() {
+        try {
+            serverSocket.close();
+            if (spectatorSocket != null) spectatorSocket.close();
+        } catch (IOException e) {
+            // Nothing left to clean up
+        }
+    }
+
+    /**
+     * A partition of the rooms with its own tick thread.
+     */
+    private class Shard {
+        private final int index;
+        private final TickLoop tickLoop;
+        // The mobs in the shard's rooms, only touched by its tick thread
+        private final List<Mob> mobs = new ArrayList<>();
+        private final List<MobSpawner> spawners;
+        private final Combat combat = new Combat();
+        private long ticks;
+
+        Shard(int index) {
+            this.index = index;
+            this.tickLoop = new TickLoop(TickLoop.DEFAULT_TICKS_PER_SECOND, OverrunPolicy.CATCH_UP, this::tick);
+            this.spawners = Game.SPAWNERS.stream()
+                    .filter(spawner -> shardOf[spawner.getRoom().ordinal()] == index)
+                    .toList();
+        }
+
+        /**
+         * Runs one tick of the shard, after the work due between ticks if this is the first shard.
+         */
+        private void tick() {
+            Optional<AllocationTracker> tracker = AllocationTracker.get();
+            AllocationTracker.Sample start = tracker.map(AllocationTracker::start).orElse(null);
+
+            if (index == 0) betweenTicks();
+
+            worldLock.readLock().lock();
+            try {
+                runTick();
+            } finally {
+                worldLock.readLock().unlock();
+            }
+
+            tracker.ifPresent(allocations -> allocations.endTick(start));
+        }
+
+        /**
+         * Runs the work that needs every shard between ticks, if any is due, holding the world still meanwhile.
+         */
+        private void betweenTicks() {
+            Optional<ContentReloader> reloader = ContentReloader.get().filter(ContentReloader::hasStaged);
+            Optional<Autosave> autosave = Autosave.get()
+                    .filter(save -> ticks > 0 && ticks % Autosave.SAVE_INTERVAL_TICKS == 0);
+            // A tick that changed nothing has no frames, and ticks without any work never take the write lock
+            boolean frames = deltas != null && deltas.hasFrames();
+            if (reloader.isEmpty() && autosave.isEmpty() && !frames) return;
+
+            worldLock.writeLock().lock();
+            try {
+                // No command sees the catalogs change or an inventory weighed with both
+                reloader.flatMap(ContentReloader::swap).ifPresent(System.out::println);
+                // A consistent copy, no item can be half way between a room and a player
+                autosave.ifPresent(Autosave::save);
+                // Every shard's changes of the last round of ticks, none of the next
+                if (frames) sendFrames();
+            } finally {
+                worldLock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Queues the frame of every spectator for its writer.
+         */
+        private void sendFrames() {
+            deltas.endTick().forEach((observer, frame) -> {
+                Spectator spectator = spectators.get(observer);
+                if (spectator != null) spectator.send(frame);
+            });
+        }
+
+        /**
+         * Takes in the mobs handed off to the shard, runs queued commands in their rooms' mailboxes, resolves the
+         * fights, ticks the mobs when it is their turn and flushes the output of the shard's connections.
+         */
+        private void runTick() {
+            Map<Room, Set<Connection>> mailboxes = new EnumMap<>(Room.class);
+
+            // Sort connections by room before running any, so a player moving this tick keeps its commands in order
+            transport.drain(index, connection -> {
+                if (connection.shard != index) {
+                    // Told before it was handed off
+                    transport.send(connection.shard, connection);
+                    return;
+                }
+                mailboxes.computeIfAbsent(connection.room(), room -> new LinkedHashSet<>()).add(connection);
+            });
+
+            mobTransport.drain(index, this::receive);
+
+            mailboxes.values().parallelStream().forEach(mailbox -> mailbox.forEach(Connection::runCommands));
+
+            mobs.removeAll(combat.resolve());
+
+            // As in the single player game, mobs act on their own clock
+            if (ticks++ % Game.MOB_TICK_INTERVAL == 0) {
+                tickMobs();
+            }
+
+            if (index == 0) Notifications.INSTANCE.flush();
+
+            connections.forEach(connection -> {
+                if (connection.shard == index) connection.flush();
+            });
+
+            if (index == 0) tickHash = WorldHash.INSTANCE.get();
+        }
+
+        /**
+         * Runs the behaviour of the shard's mobs, lets its spawners replace killed mobs, and hands the mobs that
+         * walked into another shard's room off to that shard.
+         */
+        private void tickMobs() {
+            mobs.forEach(Mob::act);
+            spawners.forEach(spawner -> spawner.tick(mobs));
+
+            mobs.removeIf(mob -> {
+                Room room = mob.getLocation();
+                // Killed, its spawner recycles it
+                if (room == null) return true;
+
+                int owner = shardOf[room.ordinal()];
+                if (owner == index) return false;
+                mobTransport.send(owner, mob);
+                return true;
+            });
+        }
+
+        /**
+         * Takes in a mob handed off by another shard.
+         */
+        private void receive(Mob mob) {
+            Room room = mob.getLocation();
+            // Killed on the way, or already back from the pool in its spawner's room
+            if (room == null || mobs.contains(mob)) return;
+
+            int owner = shardOf[room.ordinal()];
+            if (owner != index) {
+                mobTransport.send(owner, mob);
+                return;
+            }
+            mobs.add(mob);
+        }
+    }
+
+    /**
+     * A client connection, bound to its own player.
+     * Output written during a tick is buffered and handed to a writer thread once per tick.
+     */
+    private class Connection {
+        private final Socket socket;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final PrintStream out = new PrintStream(buffer);
+        private final BlockingQueue<byte[]> outbox = new LinkedBlockingQueue<>();
+        private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+        // The shard running this connection's commands, changed by the shard handing it off
+        private volatile int shard = shardOf[Game.SPAWN_ROOM.ordinal()];
+        // Attacks waiting for their outcome, below zero for a moment if the outcome comes before the count
+        private final AtomicInteger unresolvedAttacks = new AtomicInteger();
+        private Game game;
+        private boolean closed;
+
+        Connection(Socket socket) {
+            this.socket = socket;
+        }
+
+        /**
+         * Reads commands from the client until it disconnects, queueing each one for the connection's shard.
+         */
+        void serve() {
+            try {
+                Parser parser = new Parser(socket.getInputStream());
+                OutputStream socketOut = socket.getOutputStream();
+                Thread.ofVirtual().start(() -> writeOutput(socketOut));
+
+                post(() -> join(parser));
+
+                while (parser.hasNextCommand()) {
+                    Command command = parser.nextCommand();
+                    post(() -> handle(command));
+                }
+            } catch (IOException e) {
+                // Connection dropped, fall through to leave
+            }
+
+            post(this::leave);
+        }
+
+        private void post(Runnable action) {
+            commands.add(action);
+            transport.send(shard, this);
+        }
+
+        /**
+         * Runs the connection's queued commands on its shard's tick thread, until they run out, one takes the player
+         * into another room, or one is an attack waiting for its outcome. The connection is then told to the shard
+         * owning the new room, handed off if that is another shard, so the rest run in the new room's mailbox next
+         * tick, or told to its shard again once the attack is answered.
+         */
+        void runCommands() {
+            Room mailbox = room();
+            Runnable command;
+            while (unresolvedAttacks.get() <= 0 && (command = commands.poll()) != null) {
+                command.run();
+
+                Room room = room();
+                if (room != mailbox) {
+                    int owner = shardOf[room.ordinal()];
+                    if (owner != shard) {
+                        shard = owner;
+                        game.setTickLoop(shards[owner].tickLoop);
+                        game.setCombat(shards[owner].combat);
+                    }
+                    transport.send(owner, this);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return The room whose mailbox this connection's commands go to.
+         */
+        Room room() {
+            Room room = game != null ? game.getPlayer().getLocation() : null;
+            return room != null ? room : Game.SPAWN_ROOM;
+        }
+
+        private void join(Parser parser) {
+            Player player = new Player("player" + playerCount.incrementAndGet(), Game.INVENTORY_CAPACITY);
+            // Not restored by the autosave: the name only tells which connection this is, not who is playing
+            LocationManager.INSTANCE.spawn(player, Game.SPAWN_ROOM);
+
+            // Mobs belong to the shards
+            game = new Game(parser, player, List.of(), out);
+            game.setTickLoop(shards[shard].tickLoop);
+            game.setCombat(shards[shard].combat);
+            game.setFightReports(this::answerAttack);
+            connections.add(this);
+
+            game.printWelcome();
+            out.println(PROMPT);
+        }
+
+        private void handle(Command command) {
+            if (closed) return;
+
+            game.handle(command).ifPresentOrElse(
+                    result -> {
+                        out.println("Thank you for playing. Good bye.");
+                        leave();
+                    },
+                    () -> {
+                        if (game.hasQueuedAttack()) {
+                            unresolvedAttacks.incrementAndGet();
+                        } else {
+                            out.println(PROMPT);
+                        }
+                    }
+            );
+        }
+
+        /**
+         * Answers an attack with its outcome, on the tick thread of its shard, and lets the commands after it run.
+         */
+        private void answerAttack(String outcome) {
+            out.println(outcome);
+            out.println(PROMPT);
+
+            if (unresolvedAttacks.decrementAndGet() == 0) {
+                transport.send(shard, this);
+            }
+        }
+
+        private void leave() {
+            if (closed) return;
+            closed = true;
+
+            // The connection may drop before its player joined
+            if (game != null) {
+                game.close();
+                LocationManager.INSTANCE.removeEntity(game.getPlayer());
+                flush();
+                connections.remove(this);
+            }
+            outbox.add(CLOSE);
+        }
+
+        /**
+         * Hands everything written since the last flush to the writer thread as one chunk.
+         */
+        void flush() {
+            // Notices flushed by the first shard may write to connections of other shards
+            synchronized (buffer) {
+                if (buffer.size() == 0) return;
+
+                outbox.add(buffer.toByteArray());
+                buffer.reset();
+            }
+        }
+
+        private void writeOutput(OutputStream socketOut) {
+            try {
+                byte[] chunk;
+                while ((chunk = outbox.take()) != CLOSE) {
+                    socketOut.write(chunk);
+                    socketOut.flush();
+                }
+                socket.close();
+            } catch (IOException | InterruptedException e) {
+                // Client went away, the reader will notice and leave
+            }
+        }
+    }
+
+    /**
+     * A spectator connection, watching the whole world. Frames are written by the spectator's own thread.
+     */
+    private class Spectator {
+        private final Socket socket;
+        private final WorldDeltas.Observer observer;
+        private final BlockingQueue<byte[]> outbox = new LinkedBlockingQueue<>();
+
+        Spectator(Socket socket) {
+            this.socket = socket;
+            this.observer = deltas.subscribe(EnumSet.allOf(Room.class));
+            spectators.put(observer, this);
+        }
+
+        /**
+         * Queues a frame, or drops the spectator if it doesn't keep up.
+         */
+        void send(byte[] frame) {
+            if (outbox.size() >= MAX_QUEUED_FRAMES) {
+                stop();
+                return;
+            }
+            outbox.add(frame);
+        }
+
+        /**
+         * Writes the queued frames until the spectator goes away or is dropped.
+         */
+        void serve() {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                while (true) {
+                    byte[] frame = outbox.take();
+                    out.writeInt(frame.length);
+                    out.write(frame);
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException e) {
+                // Spectator went away or was dropped
+            } finally {
+                stop();
+            }
+        }
+
+        private void stop() {
+            spectators.remove(observer);
+            deltas.unsubscribe(observer);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+/**
+ * How a player's game session ended.
+ */
+public enum SessionResult {
+    WON,
+    QUIT
+}
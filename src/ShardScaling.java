@@ -0,0 +1,69 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Throughput of the multiplayer {@link Server} by number of shards.
+ * <p>The world is global to the JVM, so every shard count runs the {@link LoadGenerator} in a fresh JVM with
+ * {@code -Dminecraft.shards} set, on this JVM's classpath. The rounds of all runs are printed side by side with their
+ * shard count, so the throughput gained by every added shard can be read off at each number of bots.</p>
+ */
+public class ShardScaling {
+    private static final int[] DEFAULT_SHARDS = {1, 2, 4, 7};
+    private static final String ROUND_SECONDS = "5";
+    private static final String[] BOTS = {"100", "1000", "3000"};
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional shard counts to compare, e.g. {@code 1 2 4}.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int[] shardCounts = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : DEFAULT_SHARDS;
+
+        System.out.printf("%6s %8s %10s %10s %9s %9s %9s %8s%n",
+                "shards", "bots", "commands", "cmd/s", "p50 ms", "p95 ms", "p99 ms", "errors");
+        for (int shards : shardCounts) {
+            for (String round : run(shards)) {
+                System.out.printf("%6d %s%n", shards, round);
+            }
+        }
+    }
+
+    /**
+     * Runs the load generator against a server with the given number of shards.
+     *
+     * @param shards The number of shards.
+     * @return The result line of every round.
+     */
+    private static List<String> run(int shards) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(
+                ProcessHandle.current().info().command().orElse("java"),
+                "-D" + Server.SHARDS_PROPERTY + "=" + shards,
+                "-cp", System.getProperty("java.class.path"),
+                LoadGenerator.class.getName(),
+                ROUND_SECONDS));
+        command.addAll(List.of(BOTS));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+        List<String> rounds = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Round results are the lines starting with the number of bots
+                if (line.matches("\\s+\\d+ .*")) rounds.add(line);
+            }
+        }
+
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Load generator with " + shards + " shards failed");
+        }
+        return rounds;
+    }
+}
\ No newline at end of file
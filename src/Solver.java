@@ -0,0 +1,510 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays Mini Minecraft to the win condition by parallel Monte Carlo tree search.
+ * <p>The live world is global state, so the solver plays on a compact copy of what matters for winning: where the
+ * player and the Enderman are, the Enderman's health and which items lie where, packed into a {@link State} of a few
+ * longs. Copies are free, which lets every search iteration replay the game from the root with its own
+ * random rolls for the Enderman's teleports and moves and the Nether's destinations. The Enderman makes the chance
+ * moves of its {@link MobTypes} entry, every {@link Game#MOB_TICK_INTERVAL} commands as a player entering one command
+ * per tick would see it.</p>
+ * <p>Each command is chosen by a search on a {@link ForkJoinPool}: every worker grows its own tree from the
+ * current state with its own seeded {@link Random}, and the workers' visit counts at the root are added up to pick the
+ * command. Runs with the same seed and thread count are identical.</p>
+ * <p>Used to check that a world is winnable, and as a CPU-bound benchmark.</p>
+ */
+public class Solver {
+    private static final Room[] ROOMS = Room.values();
+    private static final Item[] ITEMS = Items.all().toArray(Item[]::new);
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Recipe[] RECIPES = Recipes.all().toArray(Recipe[]::new);
+    private static final int[][] EXITS = exitTable();
+
+    private static final int NO_ROOM = -1;
+    private static final int MAX_DEPTH = 60;
+    private static final int MAX_STEPS = 200;
+    private static final double EXPLORATION = Math.sqrt(2);
+    private static final int DEFAULT_ITERATIONS = 20_000;
+
+    // The enderman's moves in mobs.txt, as the solver models it
+    private static final List<MobTypes.ChanceMove> ENDERMAN_MOVES = MobTypes.chanceMoves(MobTypes.ENDERMAN);
+
+    // Action codes
+    private static final int GO = 0;                          // + direction
+    private static final int PICKUP = GO + DIRECTIONS.length; // + item
+    private static final int DROP = PICKUP + ITEMS.length;    // + item
+    private static final int CRAFT = DROP + ITEMS.length;     // + recipe
+    private static final int ATTACK = CRAFT + RECIPES.length; // the Enderman
+    private static final int ACTIONS = ATTACK + 1;
+
+    private final long seed;
+    private int searches;
+
+    /**
+     * Creates a solver whose searches are seeded from the given seed.
+     *
+     * @param seed The seed for all random rolls.
+     */
+    public Solver(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Solves a freshly created world and measures how search speed scales with the number of cores.
+     *
+     * @param args Optional search iterations per command and seed, e.g. {@code 20000 1}.
+     */
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ITERATIONS;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        Game.createWorld();
+        Player player = new Player("solver", Game.INVENTORY_CAPACITY);
+        LocationManager.INSTANCE.spawn(player, Game.SPAWN_ROOM);
+        State start = State.fromWorld(player);
+
+        Plan plan = new Solver(seed).solve(start, iterations, cores);
+        System.out.println(plan.won()
+                ? "Winnable in " + plan.commands().size() + " commands:"
+                : "No win found within " + MAX_STEPS + " commands:");
+        plan.commands().forEach(command -> System.out.println("  " + command));
+        System.out.printf("%.0f nodes/s on %d threads%n", plan.nodesPerSecond(), cores);
+
+        System.out.println();
+        System.out.printf("%8s %14s %9s%n", "threads", "nodes/s", "speedup");
+        double single = 0;
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            Search search = new Solver(seed).search(start, iterations * 4, threads);
+            single = threads == 1 ? search.nodesPerSecond() : single;
+            System.out.printf("%8d %14.0f %8.2fx%n", threads, search.nodesPerSecond(), search.nodesPerSecond() / single);
+        }
+    }
+
+    /**
+     * Plays from the given state until the win condition holds, searching for every command. The Enderman and the
+     * Nether behave randomly, so the plan is one sampled playthrough.
+     *
+     * @param start      The state to play from.
+     * @param iterations The search iterations per command.
+     * @param threads    The number of search workers.
+     * @return The commands played, and whether they won.
+     */
+    public Plan solve(State start, int iterations, int threads) {
+        Random world = new Random(seed);
+        List<String> commands = new ArrayList<>();
+        State state = start;
+        long nodes = 0;
+        long nanos = 0;
+
+        while (!state.won() && commands.size() < MAX_STEPS) {
+            Search search = search(state, iterations, threads);
+            nodes += search.nodes();
+            nanos += search.nanos();
+
+            commands.add(describe(search.action()));
+            state = state.step(search.action(), world);
+        }
+
+        return new Plan(commands, state.won(), nodes, nanos);
+    }
+
+    /**
+     * Searches for the best next command from the given state.
+     *
+     * @param root       The state to search from.
+     * @param iterations The total search iterations, split between the workers.
+     * @param threads    The number of search workers.
+     * @return The best command and the work done to find it.
+     */
+    public Search search(State root, int iterations, int threads) {
+        LongAdder nodes = new LongAdder();
+        long searchSeed = seed * 1_000_003L + searches++;
+        long start = System.nanoTime();
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<ForkJoinTask<Node>> trees = new ArrayList<>();
+        for (int worker = 0; worker < threads; worker++) {
+            Random random = new Random(searchSeed * 31 + worker);
+            int workerIterations = iterations / threads;
+            trees.add(pool.submit(() -> grow(root, workerIterations, random, nodes)));
+        }
+
+        // Root parallelisation: add up how often each worker tried each command
+        int[] visits = new int[ACTIONS];
+        for (ForkJoinTask<Node> tree : trees) {
+            Node[] children = tree.join().children;
+            for (int action = 0; action < ACTIONS; action++) {
+                if (children[action] != null) visits[action] += children[action].visits;
+            }
+        }
+        pool.shutdown();
+
+        int best = 0;
+        for (int action = 1; action < ACTIONS; action++) {
+            if (visits[action] > visits[best]) best = action;
+        }
+
+        return new Search(best, nodes.sum(), System.nanoTime() - start);
+    }
+
+    private static Node grow(State root, int iterations, Random random, LongAdder nodes) {
+        Node tree = new Node();
+        Node[] path = new Node[MAX_DEPTH + 1];
+        int[] legal = new int[ACTIONS];
+        long visited = 0;
+
+        for (int i = 0; i < iterations; i++) {
+            visited += iterate(tree, root, random, path, legal);
+        }
+
+        nodes.add(visited);
+        return tree;
+    }
+
+    /**
+     * Runs one iteration: selects down the tree by UCT, expands one untried command, plays randomly to the end and
+     * backs the reward up the path.
+     *
+     * @return The number of states visited.
+     */
+    private static int iterate(Node tree, State root, Random random, Node[] path, int[] legal) {
+        Node node = tree;
+        State state = root;
+        int depth = 0;
+        path[0] = tree;
+
+        while (!state.won() && depth < MAX_DEPTH) {
+            int count = state.legalActions(legal);
+
+            // Expand a random untried command, if there is one
+            int untried = -1;
+            int seen = 0;
+            for (int i = 0; i < count; i++) {
+                if (node.children[legal[i]] == null && random.nextInt(++seen) == 0) {
+                    untried = legal[i];
+                }
+            }
+
+            if (untried >= 0) {
+                node = node.children[untried] = new Node();
+                state = state.step(untried, random);
+                path[++depth] = node;
+                break;
+            }
+
+            int best = legal[0];
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                double score = node.children[legal[i]].uct(node.visits);
+                if (score > bestScore) {
+                    best = legal[i];
+                    bestScore = score;
+                }
+            }
+
+            node = node.children[best];
+            state = state.step(best, random);
+            path[++depth] = node;
+        }
+
+        // Random playout
+        int visited = depth;
+        while (!state.won() && state.steps() - root.steps() < MAX_DEPTH) {
+            int count = state.legalActions(legal);
+            state = state.step(legal[random.nextInt(count)], random);
+            visited++;
+        }
+
+        double reward = state.reward(state.steps() - root.steps());
+        for (int i = 0; i <= depth; i++) {
+            path[i].visits++;
+            path[i].value += reward;
+        }
+
+        return visited;
+    }
+
+    private static String describe(int action) {
+        if (action < PICKUP) return CommandWord.GO + " " + DIRECTIONS[action - GO];
+        if (action < DROP) return CommandWord.PICKUP + " " + ITEMS[action - PICKUP].getName();
+        if (action < CRAFT) return CommandWord.DROP + " " + ITEMS[action - DROP].getName();
+        if (action < ATTACK) {
+            Recipe recipe = RECIPES[action - CRAFT];
+            return CommandWord.CRAFT + " " + recipe.ingredient1().getName() + " " + recipe.ingredient2().getName();
+        }
+        return CommandWord.ATTACK + " enderman";
+    }
+
+    private static int[][] exitTable() {
+        int[][] exits = new int[ROOMS.length][DIRECTIONS.length];
+        for (Room room : ROOMS) {
+            for (Direction direction : DIRECTIONS) {
+                Room exit = room.exits.get(direction);
+                exits[room.ordinal()][direction.ordinal()] = exit != null ? exit.ordinal() : NO_ROOM;
+            }
+        }
+        return exits;
+    }
+
+    /**
+     * The part of the world that matters for winning. Items are sets of bits by {@link Item} id; the items
+     * lying in the rooms are one such set per room, side by side in one long.
+     *
+     * @param playerRoom     The ordinal of the player's room.
+     * @param playerItems    The items the player carries.
+     * @param roomItems      The items lying in each room.
+     * @param endermanRoom   The ordinal of the Enderman's room, or {@link #NO_ROOM} once it is dead.
+     * @param endermanHealth The Enderman's health.
+     * @param endermanItems  The items the Enderman drops.
+     * @param steps          The number of commands played so far.
+     */
+    public record State(int playerRoom, long playerItems, long roomItems, int endermanRoom, int endermanHealth,
+                        long endermanItems, int steps) {
+
+        static {
+            if (ROOMS.length * ITEMS.length > Long.SIZE) {
+                throw new IllegalStateException("Too many rooms and items to pack into a State");
+            }
+        }
+
+        /**
+         * Captures the state of the live world.
+         *
+         * @param player The player to solve for.
+         * @return The state of the world.
+         */
+        public static State fromWorld(Player player) {
+            long roomItems = 0;
+            for (Room room : ROOMS) {
+                for (Item item : room.items.getAllItems()) {
+                    roomItems |= roomBit(room.ordinal(), item.getId());
+                }
+            }
+
+            Entity enderman = LocationManager.INSTANCE.getEntities().stream()
+                    .filter(entity -> entity instanceof Mob mob && mob.getType().equals(MobTypes.ENDERMAN))
+                    .findFirst()
+                    .orElse(null);
+
+            return new State(player.getLocation().ordinal(), itemBits(player.inventory.getAllItems()), roomItems,
+                    enderman != null ? enderman.getLocation().ordinal() : NO_ROOM,
+                    enderman != null ? enderman.getHealth() : 0,
+                    enderman != null ? itemBits(enderman.inventory.getAllItems()) : 0,
+                    0);
+        }
+
+        /**
+         * @return true if the player holds the Eye of Ender in the End Portal room.
+         */
+        public boolean won() {
+            return playerRoom == Room.END_PORTAL_ROOM.ordinal() && has(playerItems, 1L << Items.EYE_OF_ENDER.getId());
+        }
+
+        /**
+         * Plays one command as one tick: on a mob tick the Enderman acts first, as mobs do at the start of a tick in
+         * {@link Game}, then the player's command is carried out.
+         *
+         * @param action The command's action code.
+         * @param random The source of the tick's random rolls.
+         * @return The state after the tick.
+         */
+        State step(int action, Random random) {
+            int player = playerRoom;
+            long carried = playerItems;
+            long lying = roomItems;
+            int enderman = endermanRoom;
+            int health = endermanHealth;
+
+            if (enderman != NO_ROOM && steps % Game.MOB_TICK_INTERVAL == 0) {
+                for (MobTypes.ChanceMove move : ENDERMAN_MOVES) {
+                    if (random.nextDouble() >= move.chance()) continue;
+
+                    int from = enderman;
+                    enderman = move.destinations() != null
+                            ? move.destinations().sample(random, ROOMS[from]).map(Room::ordinal).orElse(from)
+                            : randomExit(from, random);
+                }
+            }
+
+            if (action < PICKUP) {
+                int destination = EXITS[player][action - GO];
+                if (destination != NO_ROOM) {
+                    player = destination;
+                    if (destination == Room.NETHER.ordinal()) {
+                        player = Game.NETHER_DESTINATIONS.sample(random, Room.NETHER)
+                                .map(Room::ordinal)
+                                .orElse(player);
+                    }
+                }
+            } else if (action < DROP) {
+                int item = action - PICKUP;
+                if (has(lying, roomBit(player, item)) && fits(carried, ITEMS[item])) {
+                    lying &= ~roomBit(player, item);
+                    carried |= 1L << item;
+                }
+            } else if (action < CRAFT) {
+                int item = action - DROP;
+                if (has(carried, 1L << item)) {
+                    carried &= ~(1L << item);
+                    lying |= roomBit(player, item);
+                }
+            } else if (action < ATTACK) {
+                Recipe recipe = RECIPES[action - CRAFT];
+                long ingredients = (1L << recipe.ingredient1().getId()) | (1L << recipe.ingredient2().getId());
+                if (has(carried, ingredients) && fits(carried & ~ingredients, recipe.result())) {
+                    carried = (carried & ~ingredients) | (1L << recipe.result().getId());
+                }
+            } else if (enderman == player) {
+                int damage = has(carried, 1L << Items.IRON_SWORD.getId())
+                        ? Items.IRON_SWORD.getDamage()
+                        : Entity.FIST_DAMAGE;
+                health = Math.max(health - damage, 0);
+
+                // Dead, drop everything in the room
+                if (health == 0) {
+                    for (int item = 0; item < ITEMS.length; item++) {
+                        if (has(endermanItems, 1L << item)) lying |= roomBit(player, item);
+                    }
+                    enderman = NO_ROOM;
+                }
+            }
+
+            return new State(player, carried, lying, enderman, health, endermanItems, steps + 1);
+        }
+
+        /**
+         * Lists the commands worth trying: moves through existing exits, pickups of items that are there and fit,
+         * drops of carried items, possible crafts and attacking an Enderman in the room.
+         *
+         * @param actions Receives the action codes.
+         * @return The number of commands.
+         */
+        int legalActions(int[] actions) {
+            int count = 0;
+
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                if (EXITS[playerRoom][direction] != NO_ROOM) actions[count++] = GO + direction;
+            }
+
+            for (int item = 0; item < ITEMS.length; item++) {
+                if (has(roomItems, roomBit(playerRoom, item)) && ITEMS[item].isPickable()
+                        && fits(playerItems, ITEMS[item])) {
+                    actions[count++] = PICKUP + item;
+                }
+                if (has(playerItems, 1L << item)) actions[count++] = DROP + item;
+            }
+
+            for (int recipe = 0; recipe < RECIPES.length; recipe++) {
+                long ingredients = (1L << RECIPES[recipe].ingredient1().getId())
+                        | (1L << RECIPES[recipe].ingredient2().getId());
+                if (has(playerItems, ingredients)) actions[count++] = CRAFT + recipe;
+            }
+
+            if (endermanRoom == playerRoom) actions[count++] = ATTACK;
+
+            return count;
+        }
+
+        /**
+         * Rewards a win, sooner being better, and otherwise gives partial credit for progress towards the Eye of
+         * Ender so random playouts that get close still guide the search.
+         *
+         * @param depth The number of commands played since the search's root.
+         */
+        double reward(int depth) {
+            if (won()) {
+                return 1.0 - 0.5 * depth / MAX_DEPTH;
+            }
+
+            boolean eye = has(playerItems, 1L << Items.EYE_OF_ENDER.getId());
+            double progress = 0;
+            if (endermanRoom == NO_ROOM) progress += 0.2;
+            else if (has(playerItems, 1L << Items.IRON_SWORD.getId())) progress += 0.1;
+            if (eye || has(playerItems, 1L << Items.ENDER_PEARL.getId())) progress += 0.2;
+            if (eye || has(playerItems, 1L << Items.BLAZE_POWDER.getId())) progress += 0.2;
+            if (eye) progress += 0.2;
+
+            return 0.5 * progress;
+        }
+
+        private static int randomExit(int room, Random random) {
+            int exits = 0;
+            int chosen = room;
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                int exit = EXITS[room][direction];
+                if (exit != NO_ROOM && random.nextInt(++exits) == 0) chosen = exit;
+            }
+            return chosen;
+        }
+
+        private static boolean fits(long carried, Item item) {
+            double weight = item.getWeight();
+            for (int i = 0; i < ITEMS.length; i++) {
+                if (has(carried, 1L << i)) weight += ITEMS[i].getWeight();
+            }
+            return weight <= Game.INVENTORY_CAPACITY;
+        }
+
+        private static boolean has(long set, long bits) {
+            return (set & bits) == bits;
+        }
+
+        private static long roomBit(int room, int item) {
+            return 1L << (room * ITEMS.length + item);
+        }
+
+        private static long itemBits(List<Item> items) {
+            long bits = 0;
+            for (Item item : items) bits |= 1L << item.getId();
+            return bits;
+        }
+    }
+
+    /**
+     * A node of a worker's search tree, standing for the commands on the path to it. The state a node stands for
+     * differs between iterations, as the random rolls do.
+     */
+    private static final class Node {
+        private final Node[] children = new Node[ACTIONS];
+        private int visits;
+        private double value;
+
+        double uct(int parentVisits) {
+            return value / visits + EXPLORATION * Math.sqrt(Math.log(parentVisits) / visits);
+        }
+    }
+
+    /**
+     * The result of searching for one command.
+     *
+     * @param action The best command's action code.
+     * @param nodes  The number of states visited.
+     * @param nanos  The time taken.
+     */
+    public record Search(int action, long nodes, long nanos) {
+        public double nodesPerSecond() {
+            return nodes / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * A playthrough found by the solver.
+     *
+     * @param commands The commands played.
+     * @param won      Whether the commands reach the win condition.
+     * @param nodes    The number of states visited while searching.
+     * @param nanos    The time spent searching.
+     */
+    public record Plan(List<String> commands, boolean won, long nodes, long nanos) {
+        public double nodesPerSecond() {
+            return nodes / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+}
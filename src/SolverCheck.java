@@ -0,0 +1,55 @@
+/**
+ * Checks of the {@link Solver}'s model of the game, which is easy to get subtly wrong as the items are packed into
+ * bits.
+ * <p>Run it after touching the solver or the win condition: it prints every check and fails with an
+ * {@link IllegalStateException} at the first one that doesn't hold.</p>
+ */
+public class SolverCheck {
+    private static final int ITERATIONS = 2_000;
+
+    /**
+     * Runs all checks.
+     *
+     * @param args Not used.
+     */
+    public static void main(String[] args) {
+        onlyTheEyeOfEnderWins();
+        aWinningPlanCrafts();
+        System.out.println("All solver checks passed.");
+    }
+
+    /**
+     * The win condition is the Eye of Ender in the End Portal room, not its ingredients.
+     */
+    private static void onlyTheEyeOfEnderWins() {
+        int endPortal = Room.END_PORTAL_ROOM.ordinal();
+        long ingredients = (1L << Items.ENDER_PEARL.getId()) | (1L << Items.BLAZE_POWDER.getId());
+        long eye = 1L << Items.EYE_OF_ENDER.getId();
+
+        check(!new Solver.State(endPortal, ingredients, 0, -1, 0, 0, 0).won(),
+                "carrying the ingredients into the End Portal room doesn't win");
+        check(!new Solver.State(Game.SPAWN_ROOM.ordinal(), eye, 0, -1, 0, 0, 0).won(),
+                "carrying the Eye of Ender elsewhere doesn't win");
+        check(new Solver.State(endPortal, eye, 0, -1, 0, 0, 0).won(),
+                "carrying the Eye of Ender into the End Portal room wins");
+    }
+
+    /**
+     * A fresh world has no Eye of Ender lying around, so a winning plan has to craft one.
+     */
+    private static void aWinningPlanCrafts() {
+        Game.createWorld();
+        Player player = new Player("solver", Game.INVENTORY_CAPACITY);
+        LocationManager.INSTANCE.spawn(player, Game.SPAWN_ROOM);
+
+        Solver.Plan plan = new Solver(1).solve(Solver.State.fromWorld(player), ITERATIONS, 1);
+        check(plan.won(), "a fresh world is winnable");
+        check(plan.commands().stream().anyMatch(command -> command.startsWith(CommandWord.CRAFT.toString())),
+                "the winning plan crafts");
+    }
+
+    private static void check(boolean holds, String what) {
+        if (!holds) throw new IllegalStateException("Check failed: " + what);
+        System.out.println("ok   " + what);
+    }
+}
\ No newline at end of file
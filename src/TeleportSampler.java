@@ -0,0 +1,117 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Picks random teleport destinations in constant time, however many rooms there are.
+ * <p>Destinations are weighted, e.g. to make some rooms rarer or to give a mob an affinity for a room. The weights
+ * are turned into an alias table (Vose's method) once, after which every pick is one random index and one coin flip.
+ * The room being teleported from is excluded by picking again, which takes few attempts unless that room carries
+ * almost all of the weight.</p>
+ */
+public class TeleportSampler {
+    private static final Room[] ROOMS = Room.values();
+
+    /**
+     * Every room equally likely.
+     */
+    public static final TeleportSampler UNIFORM = new TeleportSampler(uniformWeights());
+
+    private final double[] weights;
+    private final double[] probability;
+    private final int[] alias;
+    private final double totalWeight;
+
+    private TeleportSampler(double[] weights) {
+        this.weights = weights;
+        this.totalWeight = Arrays.stream(weights).sum();
+        this.probability = new double[weights.length];
+        this.alias = new int[weights.length];
+
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("At least one room needs a positive weight");
+        }
+
+        buildAliasTable();
+    }
+
+    /**
+     * Creates a sampler like this one, but with a different weight for one room.
+     *
+     * @param room   The room to weigh.
+     * @param weight How likely the room is relative to the others, which default to 1. 0 excludes it.
+     * @return The new sampler.
+     */
+    public TeleportSampler withWeight(Room room, double weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight of " + room + " must not be negative");
+        }
+
+        double[] newWeights = weights.clone();
+        newWeights[room.ordinal()] = weight;
+        return new TeleportSampler(newWeights);
+    }
+
+    /**
+     * Picks a random destination other than the current room.
+     *
+     * @param random      The source of randomness.
+     * @param currentRoom The room being teleported from.
+     * @return The destination, or empty if there is nowhere else to go.
+     */
+    public Optional<Room> sample(Random random, Room currentRoom) {
+        // Only the current room can be picked, nowhere to go
+        if (totalWeight - weights[currentRoom.ordinal()] <= 0) {
+            return Optional.empty();
+        }
+
+        while (true) {
+            int column = random.nextInt(probability.length);
+            int index = random.nextDouble() < probability[column] ? column : alias[column];
+
+            if (index != currentRoom.ordinal()) {
+                return Optional.of(ROOMS[index]);
+            }
+        }
+    }
+
+    /**
+     * Splits the weights into equal columns, each holding at most two rooms: the column's own room with
+     * {@code probability} and its alias with the rest.
+     */
+    private void buildAliasTable() {
+        int n = weights.length;
+        double[] scaled = new double[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / totalWeight;
+            (scaled[i] < 1 ? small : large).push(i);
+        }
+
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            // The larger room gives up what it filled the smaller column with
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            (scaled[more] < 1 ? small : large).push(more);
+        }
+
+        // Whatever is left fills its own column, up to rounding errors
+        while (!large.isEmpty()) probability[large.pop()] = 1;
+        while (!small.isEmpty()) probability[small.pop()] = 1;
+    }
+
+    private static double[] uniformWeights() {
+        double[] weights = new double[ROOMS.length];
+        Arrays.fill(weights, 1);
+        return weights;
+    }
+}
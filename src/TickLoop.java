@@ -0,0 +1,142 @@
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the world at a fixed rate in real time, whether or not anyone types anything.
+ * <p>Ticks are scheduled on a fixed grid, one period apart, so the rate doesn't drift with how long ticks take. A
+ * tick that takes longer than its budget is an overrun. Once the loop is behind schedule, the {@link OverrunPolicy}
+ * decides whether the missed ticks are run back to back or skipped. A loop too far behind to catch up skips anyway
+ * and warns, as there is no point rushing through seconds of ticks.</p>
+ * <p>{@link #run()} blocks the calling thread until {@link #stop()} is called or the thread is interrupted. The
+ * {@link LagReport} may be read from any thread.</p>
+ */
+public class TickLoop {
+    public static final int DEFAULT_TICKS_PER_SECOND = 20;
+    // Beyond this many missed ticks even a catching up loop skips
+    private static final int MAX_CATCH_UP_TICKS = 40;
+
+    private final Runnable tick;
+    private final long periodNanos;
+    private final long budgetNanos;
+    private final OverrunPolicy policy;
+    private volatile boolean running;
+
+    // Guarded by this
+    private long ticks;
+    private long overruns;
+    private long skipped;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * Creates a loop whose ticks may take up to a whole period.
+     *
+     * @param ticksPerSecond The rate to tick at.
+     * @param policy         What to do about missed ticks.
+     * @param tick           One tick of the world.
+     */
+    public TickLoop(int ticksPerSecond, OverrunPolicy policy, Runnable tick) {
+        this(ticksPerSecond, TimeUnit.SECONDS.toNanos(1) / ticksPerSecond, policy, tick);
+    }
+
+    /**
+     * @param ticksPerSecond The rate to tick at.
+     * @param budgetNanos    How long a tick may take before it counts as an overrun.
+     * @param policy         What to do about missed ticks.
+     * @param tick           One tick of the world.
+     */
+    public TickLoop(int ticksPerSecond, long budgetNanos, OverrunPolicy policy, Runnable tick) {
+        if (ticksPerSecond <= 0) {
+            throw new IllegalArgumentException("Ticks per second must be positive: " + ticksPerSecond);
+        }
+
+        this.tick = tick;
+        this.periodNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+        this.budgetNanos = budgetNanos;
+        this.policy = policy;
+    }
+
+    /**
+     * Ticks until stopped or interrupted.
+     */
+    public void run() {
+        running = true;
+        long next = System.nanoTime();
+
+        while (running && !Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+            tick.run();
+            long end = System.nanoTime();
+            record(end - start);
+
+            next += periodNanos;
+            long behind = end - next;
+
+            if (behind < 0) {
+                // Ahead of schedule, wait for the next tick. Parking returns early on interrupt
+                LockSupport.parkNanos(-behind);
+                continue;
+            }
+
+            long missed = behind / periodNanos;
+            if (missed > 0 && (policy == OverrunPolicy.SKIP || missed > MAX_CATCH_UP_TICKS)) {
+                if (policy == OverrunPolicy.CATCH_UP) {
+                    System.err.println("Can't keep up! Running " + TimeUnit.NANOSECONDS.toMillis(behind)
+                            + "ms behind, skipping " + missed + " ticks");
+                }
+                skip(missed);
+                next += missed * periodNanos;
+            }
+            // Late by less than a tick, or catching up: run the next tick straight away
+        }
+    }
+
+    /**
+     * Lets the current tick finish and ends {@link #run()}. May be called from within a tick.
+     */
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * @return How the loop has kept up so far.
+     */
+    public synchronized LagReport getLagReport() {
+        return new LagReport(ticks, overruns, skipped,
+                ticks > 0 ? totalNanos / ticks : 0, maxNanos, budgetNanos);
+    }
+
+    private synchronized void record(long nanos) {
+        ticks++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        if (nanos > budgetNanos) overruns++;
+    }
+
+    private synchronized void skip(long missed) {
+        skipped += missed;
+    }
+
+    /**
+     * How a {@link TickLoop} has kept up.
+     *
+     * @param ticks        The number of ticks run.
+     * @param overruns     The number of ticks that took longer than the budget.
+     * @param skipped      The number of ticks dropped to get back on schedule.
+     * @param averageNanos The average time a tick took.
+     * @param maxNanos     The longest time a tick took.
+     * @param budgetNanos  How long a tick may take.
+     */
+    public record LagReport(long ticks, long overruns, long skipped, long averageNanos, long maxNanos,
+                            long budgetNanos) {
+        @Override
+        public String toString() {
+            return String.format("%d ticks, %d over the %.1fms budget, %d skipped, %.2fms average, %.2fms max",
+                    ticks, overruns, millis(budgetNanos), skipped, millis(averageNanos), millis(maxNanos));
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+}
\ No newline at end of file
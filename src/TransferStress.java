@@ -0,0 +1,90 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stress test of {@link Inventory#transfer} and {@link Inventory#transferAll} under contention.
+ * <p>Threads move items between a small set of shared inventories at random, in both directions at once and with
+ * the occasional transfer of everything, so the same pairs of locks are taken in opposite orders all the time. When
+ * they are done every item must be exactly as often in the world as at the start: none duplicated, none lost. A
+ * deadlock shows as threads that don't finish in time.</p>
+ */
+public class TransferStress {
+    private static final int INVENTORIES = 32;
+    private static final int THREADS = 8;
+    private static final int DEFAULT_TRANSFERS_PER_THREAD = 500_000;
+    // One in this many moves empties a whole inventory into another
+    private static final int TRANSFER_ALL_ONE_IN = 100;
+    private static final long TIMEOUT_MILLIS = 120_000;
+
+    /**
+     * Runs the stress test.
+     *
+     * @param args Optional number of transfers per thread.
+     * @throws InterruptedException if interrupted while waiting for the threads.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int transfers = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_TRANSFERS_PER_THREAD;
+        List<Item> items = Items.all();
+
+        // Every other inventory starts with one of each item
+        Inventory[] inventories = new Inventory[INVENTORIES];
+        for (int i = 0; i < INVENTORIES; i++) {
+            inventories[i] = new Inventory(Integer.MAX_VALUE, i % 2 == 0 ? items : List.of());
+        }
+        int[] before = count(inventories);
+
+        long start = System.nanoTime();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            threads.add(Thread.ofPlatform().name("transfer-" + t).start(() -> shuffle(inventories, items, transfers)));
+        }
+
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        for (Thread thread : threads) {
+            thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            if (thread.isAlive()) {
+                throw new IllegalStateException(thread.getName() + " did not finish, the transfers deadlocked");
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int[] after = count(inventories);
+        for (Item item : items) {
+            if (before[item.getId()] != after[item.getId()]) {
+                throw new IllegalStateException(item.getName() + ": " + before[item.getId()] + " before, "
+                        + after[item.getId()] + " after");
+            }
+        }
+
+        long total = (long) THREADS * transfers;
+        System.out.printf("%d transfers on %d threads in %.2f s (%.0f/s), every item conserved%n",
+                total, THREADS, seconds, total / seconds);
+    }
+
+    private static void shuffle(Inventory[] inventories, List<Item> items, int transfers) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        for (int i = 0; i < transfers; i++) {
+            Inventory from = inventories[random.nextInt(inventories.length)];
+            Inventory to = inventories[random.nextInt(inventories.length)];
+
+            if (random.nextInt(TRANSFER_ALL_ONE_IN) == 0) {
+                Inventory.transferAll(from, to);
+            } else {
+                Inventory.transfer(from, to, items.get(random.nextInt(items.size())));
+            }
+        }
+    }
+
+    /**
+     * @return How many inventories hold each item, by id.
+     */
+    private static int[] count(Inventory[] inventories) {
+        int[] counts = new int[Items.count()];
+        for (Inventory inventory : inventories) {
+            inventory.getAllItems().forEach(item -> counts[item.getId()]++);
+        }
+        return counts;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+import java.util.function.Consumer;
+
+/**
+ * Carries messages between the shards of a {@link Server}'s world.
+ * <p>Shards are numbered from 0. A message sent to a shard is delivered by the next {@link #drain} of that shard, and
+ * messages from one sender to one shard arrive in the order they were sent. Shards in the same JVM use an
+ * {@link InProcessTransport}. One between JVMs would serialise its messages, e.g. over a local socket, and nothing
+ * else needs to change.</p>
+ *
+ * @param <M> The type of message.
+ */
+public interface Transport<M> {
+    /**
+     * Sends a message to a shard. May be called from any thread.
+     *
+     * @param shard   The shard to send to.
+     * @param message The message.
+     */
+    void send(int shard, M message);
+
+    /**
+     * Delivers the messages sent to a shard so far. Only called by the shard's own tick thread.
+     *
+     * @param shard    The shard receiving.
+     * @param receiver Receives each message, in order.
+     */
+    void drain(int shard, Consumer<M> receiver);
+}
\ No newline at end of file
@@ -0,0 +1,10 @@
+/**
+ * The kinds of change to the world a {@link Rule} can react to.
+ */
+public enum Trigger {
+    ITEM_ADDED,
+    ITEM_REMOVED,
+    ENTITY_ENTERED,
+    ENTITY_LEFT,
+    ENTITY_KILLED
+}
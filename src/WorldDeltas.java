@@ -0,0 +1,293 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Compact binary per-tick state sync for remote observers, such as spectators.
+ * <p>Changes are encoded once, into a buffer per room, as {@link WorldEvents} reports them, and the first change of a
+ * tick puts its room on a list of dirty rooms. At the end of a tick every observer gets a frame made of the buffers of
+ * the dirty rooms it can see, so the work per tick grows with the number of changes rather than the size of the world,
+ * and a tick without changes costs nothing. Every {@link #KEYFRAME_INTERVAL} ticks, and whenever an observer starts
+ * watching new rooms, it gets a keyframe with the full state of its rooms instead, to resync.</p>
+ * <p>A frame is the frame type and the tick number, followed by records made of an opcode, the room's ordinal and
+ * the record's fields. Numbers are written as unsigned varints.</p>
+ */
+public class WorldDeltas implements WorldListener {
+    static final int KEYFRAME_INTERVAL = 100;
+
+    // Frame types
+    static final byte KEYFRAME = 0;
+    static final byte DELTA = 1;
+
+    // Record opcodes
+    static final byte ROOM_STATE = 0;     // room, item count, items, entity count, (entity id, name) per entity
+    static final byte ITEM_ADDED = 1;     // room, item
+    static final byte ITEM_REMOVED = 2;   // room, item
+    static final byte ENTITY_ENTERED = 3; // room, entity id, name
+    static final byte ENTITY_LEFT = 4;    // room, entity id
+    static final byte ENTITY_REMOVED = 5; // room, entity id
+
+    private final Map<Inventory, Room> roomInventories = new IdentityHashMap<>();
+    private final Map<Room, Buffer> changes = new EnumMap<>(Room.class);
+    // Rooms changed since the last frames, each once
+    private final Queue<Room> dirty = new ConcurrentLinkedQueue<>();
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+    private long tick;
+
+    private WorldDeltas() {
+        for (Room room : Room.values()) {
+            roomInventories.put(room.items, room);
+            changes.put(room, new Buffer(room));
+        }
+    }
+
+    /**
+     * Creates an encoder and starts recording changes to the world.
+     *
+     * @return The encoder, registered with {@link WorldEvents}.
+     */
+    public static WorldDeltas start() {
+        WorldDeltas deltas = new WorldDeltas();
+        WorldEvents.INSTANCE.addListener(deltas);
+        return deltas;
+    }
+
+    /**
+     * Stops recording changes to the world.
+     */
+    public void close() {
+        WorldEvents.INSTANCE.removeListener(this);
+    }
+
+    /**
+     * Registers an observer watching a set of rooms. Its first frame is a keyframe.
+     *
+     * @param rooms The rooms the observer can see.
+     * @return The observer.
+     */
+    public Observer subscribe(Set<Room> rooms) {
+        Observer observer = new Observer(rooms);
+        observers.add(observer);
+        return observer;
+    }
+
+    /**
+     * Stops encoding frames for an observer.
+     *
+     * @param observer The observer to remove.
+     */
+    public void unsubscribe(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * @return Whether {@link #endTick()} has any frame to encode: a room changed, or an observer waits for a keyframe.
+     */
+    public boolean hasFrames() {
+        if (!dirty.isEmpty()) return true;
+
+        for (Observer observer : observers) {
+            if (observer.needsKeyframe()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ends the tick, encoding a frame for each observer from the changes recorded during the tick. Observers that
+     * can't see any change and don't need a keyframe get no frame.
+     * Must be called between ticks, while the world is not changing.
+     *
+     * @return The frame for each observer that has one.
+     */
+    public Map<Observer, byte[]> endTick() {
+        Map<Room, byte[]> roomChanges = new EnumMap<>(Room.class);
+        Room room;
+        while ((room = dirty.poll()) != null) {
+            roomChanges.put(room, changes.get(room).drain());
+        }
+
+        Map<Observer, byte[]> frames = new LinkedHashMap<>();
+        for (Observer observer : observers) {
+            byte[] frame = observer.encode(roomChanges);
+            if (frame != null) frames.put(observer, frame);
+        }
+
+        tick++;
+        return frames;
+    }
+
+    @Override
+    public void itemAdded(Inventory inventory, Item item) {
+        Room room = roomInventories.get(inventory);
+        if (room != null) {
+            changes.get(room).write(ITEM_ADDED, room, data -> writeVarInt(data, item.getId()));
+        }
+    }
+
+    @Override
+    public void itemRemoved(Inventory inventory, Item item) {
+        Room room = roomInventories.get(inventory);
+        if (room != null) {
+            changes.get(room).write(ITEM_REMOVED, room, data -> writeVarInt(data, item.getId()));
+        }
+    }
+
+    @Override
+    public void entitySpawned(Entity entity, Room room) {
+        changes.get(room).write(ENTITY_ENTERED, room, data -> writeEntity(data, entity));
+    }
+
+    @Override
+    public void entityMoved(Entity entity, Room from, Room to) {
+        // Each room only describes itself, so an observer seeing both rooms isn't told twice
+        changes.get(from).write(ENTITY_LEFT, from, data -> writeVarInt(data, entity.getId()));
+        changes.get(to).write(ENTITY_ENTERED, to, data -> writeEntity(data, entity));
+    }
+
+    @Override
+    public void entityRemoved(Entity entity, Room room) {
+        changes.get(room).write(ENTITY_REMOVED, room, data -> writeVarInt(data, entity.getId()));
+    }
+
+    private static void writeEntity(DataOutputStream data, Entity entity) throws IOException {
+        writeVarInt(data, entity.getId());
+        data.writeUTF(entity.getName());
+    }
+
+    private static void writeVarInt(DataOutputStream data, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            data.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+
+    /**
+     * A remote viewer of some of the world's rooms.
+     */
+    public class Observer {
+        private Set<Room> rooms;
+        private long lastKeyframe = -1;
+
+        private Observer(Set<Room> rooms) {
+            this.rooms = EnumSet.copyOf(rooms);
+        }
+
+        /**
+         * Changes the rooms the observer can see, e.g. as a spectator follows a player. The next frame is a keyframe.
+         *
+         * @param rooms The rooms the observer can see.
+         */
+        public synchronized void setRooms(Set<Room> rooms) {
+            this.rooms = EnumSet.copyOf(rooms);
+            this.lastKeyframe = -1;
+        }
+
+        private synchronized boolean needsKeyframe() {
+            return lastKeyframe < 0;
+        }
+
+        /**
+         * @return The observer's frame, or null if it has nothing to be told.
+         */
+        private synchronized byte[] encode(Map<Room, byte[]> roomChanges) {
+            boolean keyframe = lastKeyframe < 0 || tick - lastKeyframe >= KEYFRAME_INTERVAL;
+            if (!keyframe && roomChanges.keySet().stream().noneMatch(rooms::contains)) return null;
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream data = new DataOutputStream(bytes);
+
+            try {
+                if (keyframe) {
+                    lastKeyframe = tick;
+                    data.writeByte(KEYFRAME);
+                    writeVarInt(data, tick);
+                    for (Room room : rooms) {
+                        writeRoomState(data, room);
+                    }
+                } else {
+                    data.writeByte(DELTA);
+                    writeVarInt(data, tick);
+                    // Only the rooms that changed, however many the observer sees
+                    for (Map.Entry<Room, byte[]> changed : roomChanges.entrySet()) {
+                        if (rooms.contains(changed.getKey())) data.write(changed.getValue());
+                    }
+                }
+            } catch (IOException e) {
+                // Writing to memory doesn't fail
+                throw new UncheckedIOException(e);
+            }
+
+            return bytes.toByteArray();
+        }
+
+        private void writeRoomState(DataOutputStream data, Room room) throws IOException {
+            List<Item> items = room.items.getAllItems();
+            List<Entity> entities = LocationManager.INSTANCE.getEntitiesInRoom(room);
+
+            data.writeByte(ROOM_STATE);
+            writeVarInt(data, room.ordinal());
+            writeVarInt(data, items.size());
+            for (Item item : items) {
+                writeVarInt(data, item.getId());
+            }
+            writeVarInt(data, entities.size());
+            for (Entity entity : entities) {
+                writeEntity(data, entity);
+            }
+        }
+    }
+
+    /**
+     * The changes recorded for one room during the current tick. Rooms may change in parallel, so each buffer is
+     * its own lock.
+     */
+    private class Buffer {
+        private final Room room;
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream data = new DataOutputStream(bytes);
+
+        Buffer(Room room) {
+            this.room = room;
+        }
+
+        synchronized void write(byte opcode, Room room, Fields fields) {
+            // The room's first change since the last frames
+            if (bytes.size() == 0) dirty.add(this.room);
+
+            try {
+                data.writeByte(opcode);
+                writeVarInt(data, room.ordinal());
+                fields.write(data);
+            } catch (IOException e) {
+                // Writing to memory doesn't fail
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized byte[] drain() {
+            byte[] drained = bytes.toByteArray();
+            bytes.reset();
+            return drained;
+        }
+    }
+
+    /**
+     * Writes the fields of a record.
+     */
+    @FunctionalInterface
+    private interface Fields {
+        void write(DataOutputStream data) throws IOException;
+    }
+}
@@ -0,0 +1,68 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Passes every change to the world on to the registered {@link WorldListener}s.
+ * The {@link WorldHash} is always registered.
+ */
+public class WorldEvents implements WorldListener {
+    public static final WorldEvents INSTANCE = new WorldEvents();
+
+    private final List<WorldListener> listeners = new CopyOnWriteArrayList<>(List.of(WorldHash.INSTANCE));
+
+    private WorldEvents() {
+    }
+
+    /**
+     * Starts passing changes to the listener.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(WorldListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops passing changes to the listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(WorldListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void itemAdded(Inventory inventory, Item item) {
+        listeners.forEach(listener -> listener.itemAdded(inventory, item));
+    }
+
+    @Override
+    public void itemRemoved(Inventory inventory, Item item) {
+        listeners.forEach(listener -> listener.itemRemoved(inventory, item));
+    }
+
+    @Override
+    public void entitySpawned(Entity entity, Room room) {
+        listeners.forEach(listener -> listener.entitySpawned(entity, room));
+    }
+
+    @Override
+    public void entityMoved(Entity entity, Room from, Room to) {
+        listeners.forEach(listener -> listener.entityMoved(entity, from, to));
+    }
+
+    @Override
+    public void entityRemoved(Entity entity, Room room) {
+        listeners.forEach(listener -> listener.entityRemoved(entity, room));
+    }
+
+    @Override
+    public void healthChanged(Entity entity, int from, int to) {
+        listeners.forEach(listener -> listener.healthChanged(entity, from, to));
+    }
+
+    @Override
+    public void entityKilled(Entity killer, Entity victim, Room room) {
+        listeners.forEach(listener -> listener.entityKilled(killer, victim, room));
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Incremental 64-bit hash of the world state, in the style of Zobrist hashing.
+ * <p>Every fact about the world - an item lying in an inventory, an entity standing in a room, an entity's health -
+ * has its own pseudo-random 64-bit key, and the hash is the XOR of the keys of all facts currently true. Adding or
+ * removing a fact is a single XOR, so the hash follows every change reported through {@link WorldEvents} in O(1), and
+ * two runs of the same game can be compared by their hashes alone.</p>
+ * <p>Keys are derived from inventory and entity ids, which are handed out in creation order, so identical runs
+ * produce identical hashes.</p>
+ */
+public class WorldHash implements WorldListener {
+    public static final WorldHash INSTANCE = new WorldHash();
+
+    // Kinds of fact, so an item, a location and a health with the same ids get different keys
+    private static final long ITEM = 1;
+    private static final long LOCATION = 2;
+    private static final long HEALTH = 3;
+
+    private final AtomicLong hash = new AtomicLong();
+
+    private WorldHash() {
+    }
+
+    /**
+     * @return The current hash of the world.
+     */
+    public long get() {
+        return hash.get();
+    }
+
+    /**
+     * Recomputes the hash from scratch, for occasionally verifying the incremental hash.
+     *
+     * @return The hash of the world as it is now, which equals {@link #get()} unless an update was missed.
+     */
+    public long recompute() {
+        long fullHash = 0;
+
+        for (Room room : Room.values()) {
+            fullHash ^= room.items.hash();
+        }
+
+        for (Entity entity : LocationManager.INSTANCE.getEntities()) {
+            fullHash ^= entityKey(entity, entity.getLocation());
+        }
+
+        return fullHash;
+    }
+
+    @Override
+    public void itemAdded(Inventory inventory, Item item) {
+        toggle(itemKey(inventory.getId(), item));
+    }
+
+    @Override
+    public void itemRemoved(Inventory inventory, Item item) {
+        toggle(itemKey(inventory.getId(), item));
+    }
+
+    @Override
+    public void entitySpawned(Entity entity, Room room) {
+        toggle(entityKey(entity, room));
+    }
+
+    @Override
+    public void entityMoved(Entity entity, Room from, Room to) {
+        toggle(locationKey(entity, from) ^ locationKey(entity, to));
+    }
+
+    @Override
+    public void entityRemoved(Entity entity, Room room) {
+        toggle(entityKey(entity, room));
+    }
+
+    @Override
+    public void healthChanged(Entity entity, int from, int to) {
+        toggle(healthKey(entity, from) ^ healthKey(entity, to));
+    }
+
+    static long itemKey(long inventoryId, Item item) {
+        return key(ITEM, inventoryId, item.getId());
+    }
+
+    /**
+     * @return The key of every fact about an entity in a room: where it is, its health and its items.
+     */
+    private static long entityKey(Entity entity, Room room) {
+        return locationKey(entity, room) ^ healthKey(entity, entity.getHealth()) ^ entity.inventory.hash();
+    }
+
+    private static long locationKey(Entity entity, Room room) {
+        return key(LOCATION, entity.getId(), room.ordinal());
+    }
+
+    private static long healthKey(Entity entity, int health) {
+        return key(HEALTH, entity.getId(), health);
+    }
+
+    private void toggle(long key) {
+        // XOR is order independent, so rooms updating in parallel agree on the result
+        hash.accumulateAndGet(key, (current, k) -> current ^ k);
+    }
+
+    /**
+     * Mixes a fact into a well distributed key using the SplitMix64 finaliser.
+     */
+    private static long key(long kind, long id, int index) {
+        long z = ((kind << 56) ^ (id << 24) ^ index) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
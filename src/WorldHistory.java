@@ -0,0 +1,206 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Multi-level undo and snapshots for the world.
+ * <p>Records every change reported through {@link WorldEvents} as the action that reverses it. The changes form a
+ * persistent list, newest first, each linked to the one before it, and the end of every tick is a pointer into it.
+ * Undoing a tick runs its actions newest first. A {@link Snapshot} is a pointer too, so taking one is O(1), and
+ * {@link #rollBack} returns the world to it, e.g. for analysis code trying out moves on the live world. Nothing is ever
+ * copied, so the memory kept per tick is proportional to what changed during it, however large the world is.</p>
+ * <p>Undo restores what {@link WorldEvents} reports: items, where entities are and their health. It does not roll
+ * back fights queued for the end of the tick, the state of rules and achievements, spawner cooldowns or the
+ * {@link MobPool}, which skips mobs an undo brought back to life.</p>
+ * <p>Undo rolls back the whole world, so it is only recorded for the single player game.</p>
+ */
+public class WorldHistory implements WorldListener {
+    public static final WorldHistory INSTANCE = new WorldHistory();
+
+    private static final int MAX_TICKS = 1000;
+
+    // The newest change, null if there was none since recording started
+    private Change head;
+    // The newest change that can no longer be undone, null if there is none
+    private Change floor;
+    // The newest change of every finished tick that can be undone, most recent first
+    private final Deque<Change> ticks = new ArrayDeque<>();
+    private boolean recording;
+    private boolean undoing;
+
+    private WorldHistory() {
+    }
+
+    /**
+     * Starts recording changes to the world. Everything that happened before cannot be undone.
+     */
+    public synchronized void start() {
+        if (recording) return;
+
+        recording = true;
+        WorldEvents.INSTANCE.addListener(this);
+    }
+
+    /**
+     * @return true if changes to the world are being recorded.
+     */
+    public synchronized boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Ends the current tick. Ticks without changes are not kept, so undo always goes back to a different world.
+     */
+    public synchronized void endTick() {
+        if (head == tickStart()) return;
+
+        ticks.push(head);
+
+        if (ticks.size() > MAX_TICKS) {
+            floor = ticks.removeLast();
+            // Let go of the changes before it
+            floor.previous = null;
+        }
+    }
+
+    /**
+     * Reverts everything that happened in the current tick and in the given number of ticks before it.
+     *
+     * @param count The number of finished ticks to undo.
+     * @return The number of finished ticks that were undone, fewer than asked for if the history ran out.
+     */
+    public synchronized int undo(int count) {
+        revertTo(tickStart());
+
+        int undone = 0;
+        while (undone < count && !ticks.isEmpty()) {
+            ticks.pop();
+            revertTo(tickStart());
+            undone++;
+        }
+        return undone;
+    }
+
+    /**
+     * Marks the world as it is now, to come back to with {@link #rollBack}.
+     *
+     * @return The snapshot.
+     * @throws IllegalStateException if changes are not being recorded.
+     */
+    public synchronized Snapshot snapshot() {
+        if (!recording) throw new IllegalStateException("The world's history is not recorded");
+        return new Snapshot(head, depth(head));
+    }
+
+    /**
+     * Reverts everything that happened since a snapshot was taken. Ticks finished since then are forgotten, and the
+     * snapshot, as well as those taken before it, can be rolled back to again.
+     *
+     * @param snapshot The snapshot to return to.
+     * @throws IllegalStateException if the world was undone past the snapshot since, or the snapshot is older than
+     *                               the history kept.
+     */
+    public synchronized void rollBack(Snapshot snapshot) {
+        // Check the snapshot is still on the way back before changing anything
+        for (Change change = head; change != snapshot.head; change = change.previous) {
+            if (change == null || change == floor || change.depth <= snapshot.depth) {
+                throw new IllegalStateException("The world is no longer on a path back to the snapshot");
+            }
+        }
+
+        revertTo(snapshot.head);
+        while (!ticks.isEmpty() && ticks.peek().depth > snapshot.depth) {
+            ticks.pop();
+        }
+    }
+
+    /**
+     * @return The newest change before the current tick.
+     */
+    private Change tickStart() {
+        return ticks.isEmpty() ? floor : ticks.peek();
+    }
+
+    private void revertTo(Change target) {
+        undoing = true;
+
+        try {
+            while (head != target) {
+                head.undo.run();
+                head = head.previous;
+            }
+        } finally {
+            undoing = false;
+        }
+    }
+
+    private synchronized void record(Runnable undo) {
+        // Reverting changes must not record them again
+        if (!undoing) {
+            head = new Change(undo, head, depth(head) + 1);
+        }
+    }
+
+    private static long depth(Change change) {
+        return change != null ? change.depth : 0;
+    }
+
+    @Override
+    public void itemAdded(Inventory inventory, Item item) {
+        record(() -> inventory.removeItem(item));
+    }
+
+    @Override
+    public void itemRemoved(Inventory inventory, Item item) {
+        record(() -> inventory.addItem(item));
+    }
+
+    @Override
+    public void entitySpawned(Entity entity, Room room) {
+        record(() -> LocationManager.INSTANCE.removeEntity(entity));
+    }
+
+    @Override
+    public void entityMoved(Entity entity, Room from, Room to) {
+        record(() -> LocationManager.INSTANCE.revertMove(entity, from));
+    }
+
+    @Override
+    public void entityRemoved(Entity entity, Room room) {
+        // Its health comes back with the changes to it before it left
+        record(() -> LocationManager.INSTANCE.spawn(entity, room));
+    }
+
+    @Override
+    public void healthChanged(Entity entity, int from, int to) {
+        record(() -> entity.setHealth(from));
+    }
+
+    /**
+     * The world as it was at some point, see {@link #snapshot()}.
+     */
+    public static final class Snapshot {
+        // The newest change at the time, and how many changes there were
+        private final Change head;
+        private final long depth;
+
+        private Snapshot(Change head, long depth) {
+            this.head = head;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * A recorded change, as the action reversing it.
+     */
+    private static final class Change {
+        private final Runnable undo;
+        private final long depth;
+        private Change previous;
+
+        private Change(Runnable undo, Change previous, long depth) {
+            this.undo = undo;
+            this.previous = previous;
+            this.depth = depth;
+        }
+    }
+}
\ No newline at end of file
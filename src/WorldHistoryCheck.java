@@ -0,0 +1,99 @@
+import java.util.List;
+
+/**
+ * Checks of undo and snapshots, which must bring back every part of the world they claim to restore.
+ * <p>Run it after touching {@link WorldHistory} or adding a kind of change to {@link WorldEvents}: it prints every
+ * check and fails with an {@link IllegalStateException} at the first one that doesn't hold. It compares worlds by
+ * their {@link WorldHash}.</p>
+ */
+public class WorldHistoryCheck {
+
+    /**
+     * Runs all checks.
+     *
+     * @param args Not used.
+     */
+    public static void main(String[] args) {
+        List<Mob> mobs = Game.createWorld();
+        Player player = new Player("historian", Game.INVENTORY_CAPACITY);
+        LocationManager.INSTANCE.spawn(player, Game.SPAWN_ROOM);
+
+        // A sword gets through the zombie's armor
+        player.move(Direction.SOUTH);
+        player.pickup(Items.IRON_SWORD);
+        player.move(Direction.NORTH);
+        WorldHistory.INSTANCE.start();
+
+        undoRestoresHealth(player, mobs);
+        rollBackReturnsToSnapshots(player, mobs);
+        System.out.println("All world history checks passed.");
+    }
+
+    /**
+     * Damage dealt in a fight is part of the world, and undo takes it back.
+     */
+    private static void undoRestoresHealth(Player player, List<Mob> mobs) {
+        Mob zombie = zombie(mobs);
+        long before = WorldHash.INSTANCE.get();
+
+        hit(player, zombie);
+        check(zombie.getHealth() < zombie.getMaxHealth(), "the fight hurt the zombie");
+        WorldHistory.INSTANCE.endTick();
+
+        WorldHistory.INSTANCE.undo(1);
+        check(zombie.getHealth() == zombie.getMaxHealth(), "undo heals the zombie");
+        check(WorldHash.INSTANCE.get() == before, "undo restores the world's hash");
+    }
+
+    /**
+     * Snapshots nest: rolling back to a later one keeps an earlier one usable, while one undone past is refused.
+     */
+    private static void rollBackReturnsToSnapshots(Player player, List<Mob> mobs) {
+        Mob zombie = zombie(mobs);
+        long start = WorldHash.INSTANCE.get();
+        WorldHistory.Snapshot first = WorldHistory.INSTANCE.snapshot();
+
+        hit(player, zombie);
+        WorldHistory.INSTANCE.endTick();
+        long hurt = WorldHash.INSTANCE.get();
+        WorldHistory.Snapshot second = WorldHistory.INSTANCE.snapshot();
+
+        player.drop(Items.IRON_SWORD);
+        player.move(Direction.SOUTH);
+        WorldHistory.INSTANCE.rollBack(second);
+        check(WorldHash.INSTANCE.get() == hurt && player.inventory.contains(Items.IRON_SWORD),
+                "rolling back returns to the later snapshot");
+
+        WorldHistory.INSTANCE.rollBack(first);
+        check(WorldHash.INSTANCE.get() == start && zombie.getHealth() == zombie.getMaxHealth(),
+                "rolling back again returns to the earlier snapshot");
+
+        player.move(Direction.SOUTH);
+        try {
+            WorldHistory.INSTANCE.rollBack(second);
+            check(false, "a snapshot undone past is refused");
+        } catch (IllegalStateException e) {
+            check(true, "a snapshot undone past is refused");
+        }
+        WorldHistory.INSTANCE.rollBack(first);
+        check(WorldHash.INSTANCE.get() == start, "the world is unchanged by a refused roll back");
+    }
+
+    private static Mob zombie(List<Mob> mobs) {
+        return mobs.stream()
+                .filter(mob -> mob.getType().equals(MobTypes.ZOMBIE))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("The world has no zombie"));
+    }
+
+    private static void hit(Player player, Mob mob) {
+        Combat.INSTANCE.queue(player, mob, outcome -> {
+        });
+        Combat.INSTANCE.resolve();
+    }
+
+    private static void check(boolean holds, String what) {
+        if (!holds) throw new IllegalStateException("Check failed: " + what);
+        System.out.println("ok   " + what);
+    }
+}
\ No newline at end of file
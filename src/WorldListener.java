@@ -0,0 +1,71 @@
+/**
+ * Receives every change to the world as it happens, e.g. to keep the {@link WorldHash} up to date.
+ * <p>Changes may be reported from several rooms' threads at once, so listeners must be thread safe.</p>
+ */
+public interface WorldListener {
+    /**
+     * An item was added to an inventory that is part of the world.
+     *
+     * @param inventory The inventory the item was added to.
+     * @param item      The item.
+     */
+    default void itemAdded(Inventory inventory, Item item) {
+    }
+
+    /**
+     * An item was removed from an inventory that is part of the world.
+     *
+     * @param inventory The inventory the item was removed from.
+     * @param item      The item.
+     */
+    default void itemRemoved(Inventory inventory, Item item) {
+    }
+
+    /**
+     * An entity appeared in the world, bringing the items in its inventory.
+     *
+     * @param entity The entity.
+     * @param room   The room it was spawned in.
+     */
+    default void entitySpawned(Entity entity, Room room) {
+    }
+
+    /**
+     * An entity moved, walked or teleported, from one room to another.
+     *
+     * @param entity The entity.
+     * @param from   The room it left.
+     * @param to     The room it entered.
+     */
+    default void entityMoved(Entity entity, Room from, Room to) {
+    }
+
+    /**
+     * An entity left the world, because it died or its player disconnected, taking the items in its inventory.
+     *
+     * @param entity The entity.
+     * @param room   The room it was last in.
+     */
+    default void entityRemoved(Entity entity, Room room) {
+    }
+
+    /**
+     * An entity in the world was hurt or healed.
+     *
+     * @param entity The entity.
+     * @param from   Its health before.
+     * @param to     Its health now.
+     */
+    default void healthChanged(Entity entity, int from, int to) {
+    }
+
+    /**
+     * An entity was killed in combat. Reported before the victim dies and is removed.
+     *
+     * @param killer The entity that dealt the killing blow.
+     * @param victim The entity killed.
+     * @param room   The room the fight happened in.
+     */
+    default void entityKilled(Entity killer, Entity victim, Room room) {
+    }
+}
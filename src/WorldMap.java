@@ -0,0 +1,297 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Draws an ASCII map of the rooms around a player.
+ * <p>Rooms are laid out on a grid once, by walking the exits from the first room and stepping one cell per
+ * direction. A room whose cell is already taken, or that can't be reached, starts a new island to the east. The
+ * grid is cut into tiles of {@link #TILE_SIZE} by {@link #TILE_SIZE} cells whose drawings are cached, and a tile is
+ * only drawn again once something in one of its rooms changed. Drawing a map copies the tiles under the viewport, so
+ * its cost depends on the viewport and the changes, not on the size of the world.</p>
+ * <p>Each room is a box with its name and what's in it: {@code p} players, {@code m} mobs and {@code *} items, up
+ * to 9 each. The player the map is drawn for is marked with {@code @}.</p>
+ */
+public class WorldMap implements WorldListener {
+    private static final Room[] ROOMS = Room.values();
+
+    public static final WorldMap INSTANCE = new WorldMap();
+
+    // Size of a room's cell in characters, including the connectors to the east and south
+    private static final int CELL_WIDTH = 14;
+    private static final int CELL_HEIGHT = 5;
+    private static final int NAME_WIDTH = CELL_WIDTH - 4;
+    private static final int TILE_SIZE = 8;
+
+    // Cells shown on each side of the player
+    private static final int VIEW_RADIUS_X = 3;
+    private static final int VIEW_RADIUS_Y = 2;
+
+    private final int[] roomX = new int[ROOMS.length];
+    private final int[] roomY = new int[ROOMS.length];
+    private final Map<Long, Room> grid = new HashMap<>();
+    private final Map<Long, Room> roomInventories = new HashMap<>();
+
+    // Drawn tiles by tile position, and the tiles that changed since
+    private final Map<Long, char[][]> tiles = new HashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    private WorldMap() {
+        layout();
+
+        for (Room room : ROOMS) {
+            roomInventories.put(room.items.getId(), room);
+        }
+
+        WorldEvents.INSTANCE.addListener(this);
+    }
+
+    /**
+     * Draws the rooms around an entity.
+     *
+     * @param viewer The entity to center the map on and mark with {@code @}.
+     * @return The map, one line per row.
+     */
+    public synchronized String render(Entity viewer) {
+        Room center = viewer.getLocation();
+        int centerX = roomX[center.ordinal()];
+        int centerY = roomY[center.ordinal()];
+
+        char[][] view = new char[(2 * VIEW_RADIUS_Y + 1) * CELL_HEIGHT][(2 * VIEW_RADIUS_X + 1) * CELL_WIDTH];
+        for (int y = -VIEW_RADIUS_Y; y <= VIEW_RADIUS_Y; y++) {
+            for (int x = -VIEW_RADIUS_X; x <= VIEW_RADIUS_X; x++) {
+                int cellX = centerX + x;
+                int cellY = centerY + y;
+                char[][] tile = tile(Math.floorDiv(cellX, TILE_SIZE), Math.floorDiv(cellY, TILE_SIZE));
+
+                int tileColumn = Math.floorMod(cellX, TILE_SIZE) * CELL_WIDTH;
+                int tileRow = Math.floorMod(cellY, TILE_SIZE) * CELL_HEIGHT;
+                int viewColumn = (x + VIEW_RADIUS_X) * CELL_WIDTH;
+                int viewRow = (y + VIEW_RADIUS_Y) * CELL_HEIGHT;
+                for (int line = 0; line < CELL_HEIGHT; line++) {
+                    System.arraycopy(tile[tileRow + line], tileColumn, view[viewRow + line], viewColumn, CELL_WIDTH);
+                }
+            }
+        }
+
+        // Tiles are shared by all players, the viewer is only marked on the copy
+        view[VIEW_RADIUS_Y * CELL_HEIGHT + 2][VIEW_RADIUS_X * CELL_WIDTH + 1] = '@';
+
+        return toText(view);
+    }
+
+    @Override
+    public void itemAdded(Inventory inventory, Item item) {
+        Room room = roomInventories.get(inventory.getId());
+        if (room != null) changed(room);
+    }
+
+    @Override
+    public void itemRemoved(Inventory inventory, Item item) {
+        Room room = roomInventories.get(inventory.getId());
+        if (room != null) changed(room);
+    }
+
+    @Override
+    public void entitySpawned(Entity entity, Room room) {
+        changed(room);
+    }
+
+    @Override
+    public void entityMoved(Entity entity, Room from, Room to) {
+        changed(from);
+        changed(to);
+    }
+
+    @Override
+    public void entityRemoved(Entity entity, Room room) {
+        changed(room);
+    }
+
+    private void changed(Room room) {
+        int x = Math.floorDiv(roomX[room.ordinal()], TILE_SIZE);
+        int y = Math.floorDiv(roomY[room.ordinal()], TILE_SIZE);
+        dirty.add(key(x, y));
+    }
+
+    /**
+     * Places every room on the grid, breadth first along the exits.
+     */
+    private void layout() {
+        boolean[] placed = new boolean[ROOMS.length];
+        int islandX = 0;
+
+        for (Room start : ROOMS) {
+            if (placed[start.ordinal()]) continue;
+
+            place(start, islandX, 0, placed);
+            int maxX = islandX;
+            Queue<Room> queue = new ArrayDeque<>(List.of(start));
+
+            while (!queue.isEmpty()) {
+                Room room = queue.remove();
+                for (Direction direction : Direction.values()) {
+                    Room next = room.exits.get(direction);
+                    int x = roomX[room.ordinal()] + dx(direction);
+                    int y = roomY[room.ordinal()] + dy(direction);
+
+                    // Taken cells leave the room for a later island
+                    if (next == null || placed[next.ordinal()] || grid.containsKey(key(x, y))) continue;
+
+                    place(next, x, y, placed);
+                    maxX = Math.max(maxX, x);
+                    queue.add(next);
+                }
+            }
+
+            islandX = maxX + 2;
+        }
+    }
+
+    private void place(Room room, int x, int y, boolean[] placed) {
+        roomX[room.ordinal()] = x;
+        roomY[room.ordinal()] = y;
+        grid.put(key(x, y), room);
+        placed[room.ordinal()] = true;
+    }
+
+    /**
+     * @return The drawing of a tile, drawn again if anything in it changed.
+     */
+    private char[][] tile(int tileX, int tileY) {
+        long key = key(tileX, tileY);
+        char[][] tile = tiles.get(key);
+        // Cleared either way, a tile drawn for the first time is up to date
+        boolean changed = dirty.remove(key);
+
+        if (tile == null || changed) {
+            tile = drawTile(tileX, tileY);
+            tiles.put(key, tile);
+        }
+
+        return tile;
+    }
+
+    private char[][] drawTile(int tileX, int tileY) {
+        char[][] tile = new char[TILE_SIZE * CELL_HEIGHT][TILE_SIZE * CELL_WIDTH];
+        for (char[] row : tile) {
+            Arrays.fill(row, ' ');
+        }
+
+        for (int y = 0; y < TILE_SIZE; y++) {
+            for (int x = 0; x < TILE_SIZE; x++) {
+                int cellX = tileX * TILE_SIZE + x;
+                int cellY = tileY * TILE_SIZE + y;
+                Room room = grid.get(key(cellX, cellY));
+
+                if (room != null) {
+                    drawCell(tile, x * CELL_WIDTH, y * CELL_HEIGHT, room, cellX, cellY);
+                }
+            }
+        }
+
+        return tile;
+    }
+
+    /**
+     * Draws a room's box, e.g.
+     * <pre>
+     * +----------+
+     * |PLAINS    |--
+     * |  p1 m1 *1|
+     * +----------+
+     *      |
+     * </pre>
+     */
+    private void drawCell(char[][] tile, int column, int row, Room room, int x, int y) {
+        String border = "+" + "-".repeat(NAME_WIDTH) + "+";
+        String name = room.name().length() > NAME_WIDTH ? room.name().substring(0, NAME_WIDTH) : room.name();
+
+        List<Entity> entities = LocationManager.INSTANCE.getEntitiesInRoom(room);
+        long players = entities.stream().filter(entity -> entity instanceof Player).count();
+        String contents = "  " + count('p', players) + " " + count('m', entities.size() - players)
+                + " " + count('*', room.items.getAllItems().size());
+
+        write(tile, column, row, border);
+        write(tile, column, row + 1, "|" + pad(name) + "|");
+        write(tile, column, row + 2, "|" + pad(contents) + "|");
+        write(tile, column, row + 3, border);
+
+        // Connectors to the east and south, if there is a way through
+        if (connected(room, Direction.EAST, x + 1, y, Direction.WEST)) {
+            write(tile, column + NAME_WIDTH + 2, row + 1, "--");
+        }
+        if (connected(room, Direction.SOUTH, x, y + 1, Direction.NORTH)) {
+            write(tile, column + NAME_WIDTH / 2, row + 4, "|");
+        }
+    }
+
+    private boolean connected(Room room, Direction direction, int x, int y, Direction back) {
+        Room neighbor = grid.get(key(x, y));
+        return neighbor != null && (room.exits.get(direction) == neighbor || neighbor.exits.get(back) == room);
+    }
+
+    private static String count(char symbol, long count) {
+        if (count == 0) return "  ";
+        return symbol + (count > 9 ? "+" : Long.toString(count));
+    }
+
+    private static String pad(String text) {
+        return text + " ".repeat(NAME_WIDTH - text.length());
+    }
+
+    private static void write(char[][] tile, int column, int row, String text) {
+        text.getChars(0, text.length(), tile[row], column);
+    }
+
+    /**
+     * Joins the rows of the view, leaving out the empty space around the rooms.
+     */
+    private static String toText(char[][] view) {
+        List<String> lines = Arrays.stream(view)
+                .map(row -> new String(row).stripTrailing())
+                .toList();
+
+        int first = 0;
+        int last = lines.size() - 1;
+        while (lines.get(first).isEmpty()) first++;
+        while (lines.get(last).isEmpty()) last--;
+
+        int indent = lines.subList(first, last + 1).stream()
+                .filter(line -> !line.isEmpty())
+                .mapToInt(line -> line.length() - line.stripLeading().length())
+                .min()
+                .orElse(0);
+
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines.subList(first, last + 1)) {
+            sb.append(line.isEmpty() ? line : line.substring(indent)).append("\n");
+        }
+        return sb.toString();
+    }
+
+    private static int dx(Direction direction) {
+        return switch (direction) {
+            case EAST -> 1;
+            case WEST -> -1;
+            default -> 0;
+        };
+    }
+
+    private static int dy(Direction direction) {
+        return switch (direction) {
+            case SOUTH -> 1;
+            case NORTH -> -1;
+            default -> 0;
+        };
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}